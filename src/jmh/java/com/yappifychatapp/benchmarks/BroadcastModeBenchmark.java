@@ -0,0 +1,180 @@
+package com.yappifychatapp.benchmarks;
+
+import com.yappifychatapp.services.BroadcastMetrics;
+import com.yappifychatapp.services.ChatActivity;
+import com.yappifychatapp.services.ChatBroadcaster;
+import com.yappifychatapp.services.ChatEventPayloads;
+import com.yappifychatapp.services.ChatFanout;
+import com.yappifychatapp.services.DeadLetterService;
+import com.yappifychatapp.services.HotChatDetector;
+import com.yappifychatapp.services.HotPathLog;
+import com.yappifychatapp.services.KafkaConsumerService;
+import com.yappifychatapp.services.KafkaProducerService;
+import com.yappifychatapp.services.MessageTracer;
+import com.yappifychatapp.services.NotificationService;
+import com.yappifychatapp.services.ReplayBuffer;
+import com.yappifychatapp.services.SubscriptionRegistry;
+import com.yappifychatapp.utils.KeyedSerialExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.JacksonJsonMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Broadcast listener modes on one poll of chat records: "record" delivers each record on its own,
+// "batch" groups the poll by chat first. Both run the real KafkaConsumerService and ChatBroadcaster
+// down to the simple broker and count the per-session copies instead of writing them. Scores are
+// messages per second, to hold against the 50k msg/s a node is sized for.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastModeBenchmark {
+
+    private static final int POLL_RECORDS = 500;
+    private static final int SUBSCRIBERS_PER_CHAT = 10;
+    private static final String TOPIC = "chat-messages-topic";
+
+    // Chats the poll is spread over - few busy chats coalesce well, many quiet ones do not
+    @Param({"10", "500"})
+    private int chats;
+
+    // Wire format the subscribers asked for; binary subscribers get one batch frame per chat
+    @Param({"json", "binary"})
+    private String format;
+
+    private final List<ConsumerRecord<String, byte[]>> poll = new ArrayList<>(POLL_RECORDS);
+    private KafkaConsumerService consumer;
+    private SimpleBrokerMessageHandler broker;
+    private ChatFanout chatFanout;
+    private KeyedSerialExecutor broadcastWorkers;
+    // Per-session copies handed to the outbound channel, read back so the work is not dead code
+    private long delivered;
+
+    @Setup
+    public void setUp() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        ExecutorSubscribableChannel outbound = new ExecutorSubscribableChannel();
+        outbound.subscribe(message -> delivered++);
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        broker = new SimpleBrokerMessageHandler(new ExecutorSubscribableChannel(), outbound, brokerChannel,
+                List.of("/topic"));
+        broker.start();
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate(brokerChannel);
+        // Binary subscribers need JSON records decoded, as the application's broker template does
+        messagingTemplate.setMessageConverter(new JacksonJsonMessageConverter());
+
+        SubscriptionRegistry subscriptionRegistry = new SubscriptionRegistry(meterRegistry);
+        String prefix = format.equals("binary")
+                ? SubscriptionRegistry.CHAT_BINARY_TOPIC_PREFIX
+                : SubscriptionRegistry.CHAT_TOPIC_PREFIX;
+        for (int chat = 0; chat < chats; chat++) {
+            for (int i = 0; i < SUBSCRIBERS_PER_CHAT; i++) {
+                subscribe(subscriptionRegistry, "session-" + chat + "-" + i, prefix + chatId(chat));
+            }
+        }
+
+        HotChatDetector hotChatDetector = new HotChatDetector(subscriptionRegistry, meterRegistry);
+        ReflectionTestUtils.setField(hotChatDetector, "hotDeliveriesPerSecond", 20_000.0);
+        ReflectionTestUtils.setField(hotChatDetector, "minSubscribers", 500);
+        ReplayBuffer replayBuffer = new ReplayBuffer(meterRegistry);
+        ReflectionTestUtils.setField(replayBuffer, "capacity", 256);
+        ReflectionTestUtils.setField(replayBuffer, "retentionMs", 300_000L);
+        ChatEventPayloads chatEventPayloads = new ChatEventPayloads(messagingTemplate);
+        ReflectionTestUtils.setField(chatEventPayloads, "compressThreshold", 512);
+
+        chatFanout = new ChatFanout(messagingTemplate, subscriptionRegistry, hotChatDetector,
+                new ExecutorSubscribableChannel(), meterRegistry, 1, 1024);
+        ChatBroadcaster chatBroadcaster = new ChatBroadcaster(chatFanout, hotChatDetector, subscriptionRegistry,
+                new BroadcastMetrics(meterRegistry), replayBuffer, chatEventPayloads, new ChatActivity());
+        broadcastWorkers = new KeyedSerialExecutor("broadcast-bench", 1, 1);
+        consumer = new KafkaConsumerService(chatBroadcaster, new BroadcastMetrics(meterRegistry),
+                new NotificationService(new HotPathLog(meterRegistry)), new MessageTracer(meterRegistry, 0.0),
+                new DeadLetterService(null, null, meterRegistry), broadcastWorkers);
+
+        // Records of a chat share a partition and arrive in offset order, as keyed by the producer
+        poll.clear();
+        for (int i = 0; i < POLL_RECORDS; i++) {
+            int chat = i % chats;
+            String messageId = String.format("65f1c0a2e4b0a1b2%08x", i);
+            ConsumerRecord<String, byte[]> record = new ConsumerRecord<>(TOPIC, chat % 6, i, chatId(chat),
+                    json(messageId, chatId(chat)));
+            record.headers().add(KafkaProducerService.MESSAGE_ID_HEADER, messageId.getBytes(StandardCharsets.UTF_8));
+            poll.add(record);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        chatFanout.close();
+        broadcastWorkers.close();
+        broker.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POLL_RECORDS)
+    public long record() {
+        for (ConsumerRecord<String, byte[]> record : poll) {
+            consumer.consumeMessage(record);
+        }
+        return delivered;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POLL_RECORDS)
+    public long batch() {
+        consumer.consumeBatch(poll);
+        return delivered;
+    }
+
+    // Registers the subscription with both the broker and the registry, as a STOMP SUBSCRIBE does
+    private void subscribe(SubscriptionRegistry subscriptionRegistry, String sessionId, String destination) {
+        SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        subscribe.setSessionId(sessionId);
+        subscribe.setSubscriptionId("sub-0");
+        subscribe.setDestination(destination);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders());
+        broker.handleMessage(message);
+        subscriptionRegistry.onSubscribe(new SessionSubscribeEvent(this, message));
+    }
+
+    private static String chatId(int chat) {
+        return String.format("65f1c0a2e4b0a1b2%08x", chat + 0x100000);
+    }
+
+    private static byte[] json(String messageId, String chatId) {
+        return ("{\"messageId\":\"" + messageId + "\",\"chatId\":\"" + chatId
+                + "\",\"senderId\":\"65f1c0a2e4b0a1b2c3d4e5f8\",\"senderName\":\"Ada Lovelace\","
+                + "\"content\":\"Hello there, this is a short chat message\","
+                + "\"timestamp\":\"2026-01-15T12:30:00\",\"groupChat\":true}").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package com.yappifychatapp.benchmarks;
+
+import com.yappifychatapp.dto.KafkaMessageDTO;
+import com.yappifychatapp.utils.ChatEventDeserializer;
+import com.yappifychatapp.utils.ChatEventSerializer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// KafkaMessageDTO to and from a chat topic record value, JSON and the ChatEventCodec layout.
+// The serialize runs also report the value size as secondary metrics: bytes / records is the
+// record size each encoding puts on the topic, before producer compression.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatEventSerializationBenchmark {
+
+    private static final String TOPIC = "chat-messages";
+
+    // Message content length in characters
+    @Param({"32", "1024"})
+    private int contentLength;
+
+    private ChatEventSerializer json;
+    private ChatEventSerializer binary;
+    private ChatEventDeserializer deserializer;
+    private KafkaMessageDTO message;
+    private byte[] jsonValue;
+    private byte[] binaryValue;
+
+    @Setup
+    public void setUp() {
+        json = new ChatEventSerializer(false);
+        binary = new ChatEventSerializer(true);
+        deserializer = new ChatEventDeserializer();
+        message = new KafkaMessageDTO("65f1c0a2e4b0a1b2c3d4e5f6", "65f1c0a2e4b0a1b2c3d4e5f7",
+                "65f1c0a2e4b0a1b2c3d4e5f8", "Ada Lovelace", "x".repeat(contentLength),
+                LocalDateTime.of(2026, 1, 15, 12, 30), true);
+        jsonValue = json.serialize(TOPIC, message);
+        binaryValue = binary.serialize(TOPIC, message);
+    }
+
+    // JMH sums events over iterations, so the counters are totals and only their ratio is meaningful
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RecordBytes {
+
+        public long bytes;
+        public long records;
+
+        private byte[] count(byte[] value) {
+            bytes += value.length;
+            records++;
+            return value;
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeJson(RecordBytes size) {
+        return size.count(json.serialize(TOPIC, message));
+    }
+
+    @Benchmark
+    public byte[] serializeBinary(RecordBytes size) {
+        return size.count(binary.serialize(TOPIC, message));
+    }
+
+    @Benchmark
+    public KafkaMessageDTO deserializeJson() {
+        return deserializer.deserialize(TOPIC, jsonValue);
+    }
+
+    @Benchmark
+    public KafkaMessageDTO deserializeBinary() {
+        return deserializer.deserialize(TOPIC, binaryValue);
+    }
+}
@@ -0,0 +1,72 @@
+package com.yappifychatapp.benchmarks;
+
+import com.yappifychatapp.services.HotPathLog;
+import com.yappifychatapp.services.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Per-request checks every message send pays before any real work: the token-bucket rate
+// limiter and the hot-path log budget. Run with several threads, since both are shared.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class IngressGuardBenchmark {
+
+    private RateLimiter rateLimiter;
+    private HotPathLog suppressedLog;
+    private HotPathLog budgetedLog;
+
+    @Setup
+    public void setUp() {
+        // Capacity high enough that the measurement is the check, not the rejection path
+        rateLimiter = new RateLimiter(new SimpleMeterRegistry(),
+                Integer.MAX_VALUE, 1e9, 10, 2, 100, 50);
+        ReflectionTestUtils.setField(rateLimiter, "enabled", true);
+
+        suppressedLog = new HotPathLog(new SimpleMeterRegistry());
+        budgetedLog = new HotPathLog(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(budgetedLog, "perSecond", 100);
+    }
+
+    // One caller per thread, as with distinct users
+    @State(Scope.Thread)
+    public static class Caller {
+
+        private static final AtomicInteger NEXT = new AtomicInteger();
+
+        private final String key = "user:65f1c0a2e4b0a1b2c3" + String.format("%06x", NEXT.getAndIncrement());
+    }
+
+    @Benchmark
+    public boolean rateLimitMessageSend(Caller caller) {
+        return rateLimiter.tryAcquire(caller.key, RateLimiter.EndpointClass.MESSAGE_SEND);
+    }
+
+    @Benchmark
+    public boolean hotPathLogOff() {
+        return suppressedLog.allow("message.send");
+    }
+
+    @Benchmark
+    public boolean hotPathLogBudgeted() {
+        return budgetedLog.allow("message.send");
+    }
+}
@@ -0,0 +1,58 @@
+package com.yappifychatapp.benchmarks;
+
+import com.yappifychatapp.utils.JWTUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// JWTUtil as used by the HTTP filter and the STOMP CONNECT interceptor - every authenticated
+// request validates and then extracts, so both are measured, plus a token with a bad signature
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    // Any base64 string of 256 bits or more, like the JWT_SECRET the application runs with
+    private static final String SECRET = "c2VjcmV0LWtleS1mb3ItYmVuY2htYXJraW5nLW9ubHktMjU2LWJpdHMtbG9uZw==";
+
+    private JWTUtil jwtUtil;
+    private String token;
+    private String tampered;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JWTUtil();
+        ReflectionTestUtils.setField(jwtUtil, "SECRET", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "EXPIRATION", TimeUnit.DAYS.toMillis(1));
+        token = jwtUtil.generateToken("65f1c0a2e4b0a1b2c3d4e5f8");
+        tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public String validateAndExtract() {
+        return jwtUtil.validateToken(token) ? jwtUtil.extractUserId(token) : null;
+    }
+
+    @Benchmark
+    public boolean rejectBadSignature() {
+        return jwtUtil.validateToken(tampered);
+    }
+}
@@ -0,0 +1,73 @@
+package com.yappifychatapp.benchmarks;
+
+import com.yappifychatapp.models.Chat;
+import com.yappifychatapp.models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The in-memory part of the chat membership checks, on an already loaded chat: the id scan used
+// by MessageService and the User.equals lookup used by ChatService. The member being looked up
+// is the last one, or absent, which is the worst case for both.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MembershipCheckBenchmark {
+
+    @Param({"2", "50", "1000"})
+    private int members;
+
+    private Chat chat;
+    private String lastMemberId;
+    private User lastMember;
+
+    @Setup
+    public void setUp() {
+        List<User> users = new ArrayList<>(members);
+        for (int i = 0; i < members; i++) {
+            User user = new User();
+            user.setId(String.format("65f1c0a2e4b0a1b2c3%06x", i));
+            user.setName("user-" + i);
+            users.add(user);
+        }
+        chat = new Chat();
+        chat.setUsers(users);
+        chat.setIsGroupChat(members > 2);
+        lastMember = users.get(members - 1);
+        lastMemberId = new String(lastMember.getId());
+    }
+
+    // As in MessageService.sendMessage / getAllMessages
+    @Benchmark
+    public boolean memberByIdScan() {
+        return chat.getUsers().stream()
+                .anyMatch(user -> user.getId().equals(lastMemberId));
+    }
+
+    @Benchmark
+    public boolean nonMemberByIdScan() {
+        return chat.getUsers().stream()
+                .anyMatch(user -> user.getId().equals("65f1c0a2e4b0a1b2c3ffffff"));
+    }
+
+    // As in ChatService.accessChat
+    @Benchmark
+    public boolean memberByEquals() {
+        return chat.getUsers().contains(lastMember);
+    }
+}
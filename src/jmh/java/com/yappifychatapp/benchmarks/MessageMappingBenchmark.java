@@ -0,0 +1,56 @@
+package com.yappifychatapp.benchmarks;
+
+import com.yappifychatapp.dto.KafkaMessageDTO;
+import com.yappifychatapp.models.Chat;
+import com.yappifychatapp.models.Message;
+import com.yappifychatapp.models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Stored Message -> chat event, the mapping MessageService does before publishing
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageMappingBenchmark {
+
+    private Message message;
+
+    @Setup
+    public void setUp() {
+        User sender = new User();
+        sender.setId("65f1c0a2e4b0a1b2c3d4e5f8");
+        sender.setName("Ada Lovelace");
+
+        Chat chat = new Chat();
+        chat.setId("65f1c0a2e4b0a1b2c3d4e5f7");
+        chat.setIsGroupChat(true);
+        chat.setUsers(List.of(sender));
+
+        message = new Message();
+        message.setId("65f1c0a2e4b0a1b2c3d4e5f6");
+        message.setChat(chat);
+        message.setSender(sender);
+        message.setContent("Hello there, this is a short chat message");
+        message.setCreatedAt(LocalDateTime.of(2026, 1, 15, 12, 30));
+    }
+
+    @Benchmark
+    public KafkaMessageDTO toEvent() {
+        return KafkaMessageDTO.from(message);
+    }
+}
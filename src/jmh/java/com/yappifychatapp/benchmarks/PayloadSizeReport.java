@@ -0,0 +1,89 @@
+package com.yappifychatapp.benchmarks;
+
+import com.yappifychatapp.dto.KafkaMessageDTO;
+import com.yappifychatapp.utils.ChatEventCodec;
+import com.yappifychatapp.utils.ChatEventSerializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Payload bytes per wire format, next to the timings of the JMH suites: JSON as sent on
+// /topic/chat/{id}, one frame per message, and the ChatEventCodec layout on /topic/chat-bin/{id},
+// one batch frame, both plain and deflated. Content is made of common words, so deflate sees text that looks like chat.
+// Run by the benchmarks profile; prints a table and writes target/payload-sizes.json.
+public final class PayloadSizeReport {
+
+    private static final String CHAT_ID = "65f1c0a2e4b0a1b2c3d4e5f7";
+    private static final String[] WORDS = {"the", "meeting", "is", "at", "three", "can", "you", "send",
+            "me", "latest", "draft", "thanks", "sounds", "good", "I", "will", "be", "there", "a", "bit",
+            "late", "today", "lunch", "tomorrow", "what", "about", "report", "numbers", "look", "great"};
+    private static final int[] CONTENT_LENGTHS = {32, 256, 1024};
+    private static final int[] MESSAGES_PER_FRAME = {1, 16};
+
+    private PayloadSizeReport() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path output = Path.of(args.length > 0 ? args[0] : "target/payload-sizes.json");
+        ChatEventSerializer jsonSerializer = new ChatEventSerializer(false);
+        Random random = new Random(42);
+
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%-8s %-9s %10s %10s %10s %8s%n",
+                "content", "messages", "json", "binary", "deflated", "saved"));
+        List<String> rows = new ArrayList<>();
+        for (int contentLength : CONTENT_LENGTHS) {
+            for (int messages : MESSAGES_PER_FRAME) {
+                List<KafkaMessageDTO> events = new ArrayList<>(messages);
+                List<byte[]> json = new ArrayList<>(messages);
+                for (int i = 0; i < messages; i++) {
+                    KafkaMessageDTO event = new KafkaMessageDTO("65f1c0a2e4b0a1b2c3d4e5" + String.format("%02x", i),
+                            CHAT_ID, "65f1c0a2e4b0a1b2c3d4e5f8", "Ada Lovelace", text(random, contentLength),
+                            LocalDateTime.of(2026, 1, 15, 12, 30).plusSeconds(i), true);
+                    events.add(event);
+                    json.add(jsonSerializer.serialize("chat-messages", event));
+                }
+
+                int jsonSize = json.stream().mapToInt(payload -> payload.length).sum();
+                int binarySize = binary(events, Integer.MAX_VALUE).length;
+                int deflatedSize = binary(events, 0).length;
+                double saved = 1.0 - (double) deflatedSize / jsonSize;
+
+                table.append(String.format(Locale.ROOT, "%-8d %-9d %10d %10d %10d %7.1f%%%n",
+                        contentLength, messages, jsonSize, binarySize, deflatedSize, saved * 100));
+                rows.add(String.format(Locale.ROOT,
+                        "{\"contentLength\":%d,\"messages\":%d,\"jsonBytes\":%d,\"binaryBytes\":%d,\"deflatedBytes\":%d}",
+                        contentLength, messages, jsonSize, binarySize, deflatedSize));
+            }
+        }
+
+        System.out.println("Frame payload bytes - /topic/chat (json) vs /topic/chat-bin (binary, deflated)");
+        System.out.print(table);
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Files.writeString(output, "[" + String.join(",", rows) + "]\n", StandardCharsets.UTF_8);
+    }
+
+    // Deflate is only kept when it makes the body smaller, as in production
+    private static byte[] binary(List<KafkaMessageDTO> events, int compressThreshold) {
+        return events.size() == 1
+                ? ChatEventCodec.encode(events.get(0), compressThreshold)
+                : ChatEventCodec.encodeBatch(events, compressThreshold);
+    }
+
+    private static String text(Random random, int length) {
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            if (!text.isEmpty()) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.substring(0, length);
+    }
+}
@@ -0,0 +1,148 @@
+package com.yappifychatapp.benchmarks;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import com.yappifychatapp.services.HotPathLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// What the per-message log lines cost the send path - the two a /app/chat.send writes on the
+// inbound thread (MessageService, then ChatWebSocketController). "synchronous" writes every line
+// on the calling thread, as the console appender did before logback-spring.xml; "async" hands
+// every line to the AsyncAppender; "sampledAsync" is the shipped setup, where HotPathLog lets 100
+// lines per second and call site through to the AsyncAppender. Lines go to a temp file rather
+// than stdout so the JMH output stays readable; the file is deleted afterwards.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class SendPathLoggingBenchmark {
+
+    private static final String CHAT_ID = "65f1c0a2e4b0a1b2c3d4e5f7";
+    private static final String SENDER_ID = "65f1c0a2e4b0a1b2c3d4e5f8";
+    private static final String PATTERN = "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%t] %-40.40logger{39} : %m %kvp%n";
+
+    private final AtomicLong nextMessage = new AtomicLong();
+    private LoggerContext context;
+    private Path logFile;
+    private Logger synchronousLog;
+    private Logger asyncLog;
+    private HotPathLog hotPathLog;
+
+    @Setup
+    public void setUp() throws IOException {
+        logFile = Files.createTempFile("send-path-logging", ".log");
+        context = new LoggerContext();
+
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile(logFile.toString());
+        file.setEncoder(encoder());
+        file.start();
+
+        // Same settings as ASYNC_CONSOLE in logback-spring.xml
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(8192);
+        async.setNeverBlock(true);
+        async.setIncludeCallerData(false);
+        async.addAppender(file);
+        async.start();
+
+        synchronousLog = logger("bench.synchronous.MessageService");
+        synchronousLog.addAppender(file);
+        asyncLog = logger("bench.async.MessageService");
+        asyncLog.addAppender(async);
+
+        hotPathLog = new HotPathLog(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(hotPathLog, "perSecond", 100);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.stop();
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public void synchronous() {
+        long message = nextMessage.incrementAndGet();
+        logSaved(synchronousLog, message);
+        logProcessed(synchronousLog, message);
+    }
+
+    // Under sustained load the queue fills and neverBlock drops lines - part of what is measured
+    @Benchmark
+    public void async() {
+        long message = nextMessage.incrementAndGet();
+        logSaved(asyncLog, message);
+        logProcessed(asyncLog, message);
+    }
+
+    @Benchmark
+    public void sampledAsync() {
+        long message = nextMessage.incrementAndGet();
+        if (hotPathLog.allow("message.send")) {
+            logSaved(asyncLog, message);
+        }
+        if (hotPathLog.allow("ws.send")) {
+            logProcessed(asyncLog, message);
+        }
+    }
+
+    private static void logSaved(Logger log, long message) {
+        log.atInfo().setMessage("Message saved and published")
+                .addKeyValue("messageId", message)
+                .addKeyValue("chatId", CHAT_ID)
+                .log();
+    }
+
+    private static void logProcessed(Logger log, long message) {
+        log.atInfo().setMessage("WebSocket message processed")
+                .addKeyValue("messageId", message)
+                .addKeyValue("chatId", CHAT_ID)
+                .addKeyValue("senderId", SENDER_ID)
+                .log();
+    }
+
+    private PatternLayoutEncoder encoder() {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        return encoder;
+    }
+
+    private Logger logger(String name) {
+        Logger logger = context.getLogger(name);
+        logger.setAdditive(false);
+        logger.setLevel(Level.INFO);
+        return logger;
+    }
+}
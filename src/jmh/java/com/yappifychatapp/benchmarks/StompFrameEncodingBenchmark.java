@@ -0,0 +1,151 @@
+package com.yappifychatapp.benchmarks;
+
+import com.yappifychatapp.dto.KafkaMessageDTO;
+import com.yappifychatapp.services.BroadcastPayloads;
+import com.yappifychatapp.services.SubscriptionRegistry;
+import com.yappifychatapp.utils.ChatEventCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of turning the broadcast of a chat into STOMP MESSAGE bytes for every subscriber. JSON
+// goes out as one frame per message, binary as one batch frame for all of them.
+// The sharded path addresses each subscription itself (BroadcastPayloads.forSubscription); the
+// broker path lets the simple broker match and copy headers per subscriber. Both end with the
+// header conversion and encoding StompSubProtocolHandler does for every session.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StompFrameEncodingBenchmark {
+
+    private static final String CHAT_ID = "65f1c0a2e4b0a1b2c3d4e5f7";
+
+    // Messages delivered to the chat in one poll
+    @Param({"1", "16"})
+    private int messages;
+
+    // Local sessions subscribed to the chat - every frame is encoded once per subscriber
+    @Param({"1", "100", "1000"})
+    private int subscribers;
+
+    private final StompEncoder encoder = new StompEncoder();
+    private final List<Message<byte[]>> jsonFrames = new ArrayList<>();
+    private Message<byte[]> binaryFrame;
+    private final List<Message<byte[]>> brokerJsonFrames = new ArrayList<>();
+    private SimpleBrokerMessageHandler broker;
+    // Where the broker hands each subscriber's copy; set per invocation so it reaches the blackhole
+    private Blackhole brokerSink;
+
+    @Setup
+    public void setUp() {
+        List<byte[]> json = new ArrayList<>(messages);
+        List<KafkaMessageDTO> events = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            json.add(("{\"messageId\":\"65f1c0a2e4b0a1b2c3d4e5" + String.format("%02x", i)
+                    + "\",\"chatId\":\"" + CHAT_ID + "\",\"senderId\":\"65f1c0a2e4b0a1b2c3d4e5f8\","
+                    + "\"senderName\":\"Ada Lovelace\",\"content\":\"Hello there, this is a short chat message\","
+                    + "\"timestamp\":\"2026-01-15T12:30:00\",\"groupChat\":true}").getBytes(StandardCharsets.UTF_8));
+            events.add(new KafkaMessageDTO("65f1c0a2e4b0a1b2c3d4e5" + String.format("%02x", i), CHAT_ID,
+                    "65f1c0a2e4b0a1b2c3d4e5f8", "Ada Lovelace", "Hello there, this is a short chat message",
+                    LocalDateTime.of(2026, 1, 15, 12, 30), true));
+        }
+        jsonFrames.clear();
+        json.forEach(payload -> jsonFrames.add(BroadcastPayloads.json(payload)));
+        binaryFrame = BroadcastPayloads.binary(messages == 1
+                ? ChatEventCodec.encode(events.get(0))
+                : ChatEventCodec.encodeBatch(events, 512));
+
+        String destination = SubscriptionRegistry.CHAT_TOPIC_PREFIX + CHAT_ID;
+        MessageChannel outbound = (message, timeout) -> {
+            @SuppressWarnings("unchecked")
+            Message<byte[]> copy = (Message<byte[]>) message;
+            brokerSink.consume(encode(copy));
+            return true;
+        };
+        broker = new SimpleBrokerMessageHandler(new ExecutorSubscribableChannel(), outbound,
+                new ExecutorSubscribableChannel(), List.of("/topic"));
+        broker.start();
+        for (int i = 0; i < subscribers; i++) {
+            SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            subscribe.setSessionId("session-" + i);
+            subscribe.setSubscriptionId("sub-0");
+            subscribe.setDestination(destination);
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+        }
+        brokerJsonFrames.clear();
+        for (Message<byte[]> jsonFrame : jsonFrames) {
+            SimpMessageHeaderAccessor publish = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            publish.setDestination(destination);
+            publish.setContentType(SimpMessageHeaderAccessor.getContentType(jsonFrame.getHeaders()));
+            brokerJsonFrames.add(MessageBuilder.createMessage(jsonFrame.getPayload(), publish.getMessageHeaders()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        broker.stop();
+    }
+
+    // Sharded fan-out: each frame addressed to each subscription, then encoded
+    @Benchmark
+    public void shardedJson(Blackhole blackhole) {
+        for (Message<byte[]> jsonFrame : jsonFrames) {
+            fanOut(jsonFrame, SubscriptionRegistry.CHAT_TOPIC_PREFIX + CHAT_ID, blackhole);
+        }
+    }
+
+    @Benchmark
+    public void shardedBinary(Blackhole blackhole) {
+        fanOut(binaryFrame, SubscriptionRegistry.CHAT_BINARY_TOPIC_PREFIX + CHAT_ID, blackhole);
+    }
+
+    // Broker fan-out: the simple broker finds the subscribers and sends each one a copy
+    @Benchmark
+    public void brokerJson(Blackhole blackhole) {
+        brokerSink = blackhole;
+        for (Message<byte[]> brokerJsonFrame : brokerJsonFrames) {
+            broker.handleMessage(brokerJsonFrame);
+        }
+    }
+
+    private void fanOut(Message<byte[]> frame, String destination, Blackhole blackhole) {
+        for (int i = 0; i < subscribers; i++) {
+            blackhole.consume(encode(BroadcastPayloads.forSubscription(frame, destination, "session-" + i, "sub-0")));
+        }
+    }
+
+    private byte[] encode(Message<byte[]> addressed) {
+        // What StompSubProtocolHandler does before writing the frame - also assigns the message-id
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(addressed);
+        accessor.updateStompCommandAsServerMessage();
+        return encoder.encode(accessor.getMessageHeaders(), addressed.getPayload());
+    }
+}
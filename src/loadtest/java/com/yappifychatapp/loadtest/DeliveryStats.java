@@ -0,0 +1,115 @@
+package com.yappifychatapp.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and the delivery latency histogram shared by every client. Only messages sent
+// after the warm-up are counted; everything carries its send time, so late deliveries of
+// warm-up messages are recognised and ignored.
+public class DeliveryStats {
+
+    private final Histogram latencyMicros = new ConcurrentHistogram(3);
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder sendErrors = new LongAdder();
+    private final LongAdder expectedDeliveries = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder transportErrors = new LongAdder();
+    private final LongAdder typingSent = new LongAdder();
+    private final LongAdder typingFrames = new LongAdder();
+
+    private volatile long measureFromNanos = Long.MAX_VALUE;
+    private volatile long measureUntilNanos = Long.MAX_VALUE;
+
+    public void startMeasuring(long nanos) {
+        measureFromNanos = nanos;
+    }
+
+    public void stopMeasuring(long nanos) {
+        measureUntilNanos = nanos;
+    }
+
+    public boolean measured(long sentAtNanos) {
+        return sentAtNanos >= measureFromNanos && sentAtNanos < measureUntilNanos;
+    }
+
+    public void recordSent(long sentAtNanos, int recipients) {
+        if (measured(sentAtNanos)) {
+            sent.increment();
+            expectedDeliveries.add(recipients);
+        }
+    }
+
+    public void recordSendError(long sentAtNanos) {
+        if (measured(sentAtNanos)) {
+            sendErrors.increment();
+        }
+    }
+
+    public void recordDelivered(long sentAtNanos, long receivedAtNanos) {
+        if (measured(sentAtNanos)) {
+            delivered.increment();
+            latencyMicros.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(receivedAtNanos - sentAtNanos)));
+        }
+    }
+
+    public void recordFrame() {
+        frames.increment();
+    }
+
+    public void recordTransportError() {
+        transportErrors.increment();
+    }
+
+    // Typing events carry no send time, so they are counted for the whole run
+    public void recordTypingSent() {
+        typingSent.increment();
+    }
+
+    public void recordTypingFrame() {
+        typingFrames.increment();
+    }
+
+    public long sent() {
+        return sent.sum();
+    }
+
+    public long sendErrors() {
+        return sendErrors.sum();
+    }
+
+    public long expectedDeliveries() {
+        return expectedDeliveries.sum();
+    }
+
+    public long delivered() {
+        return delivered.sum();
+    }
+
+    public long frames() {
+        return frames.sum();
+    }
+
+    public long transportErrors() {
+        return transportErrors.sum();
+    }
+
+    public long typingSent() {
+        return typingSent.sum();
+    }
+
+    public long typingFrames() {
+        return typingFrames.sum();
+    }
+
+    public double percentileMillis(double percentile) {
+        return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public double maxMillis() {
+        return latencyMicros.getMaxValue() / 1000.0;
+    }
+}
@@ -0,0 +1,122 @@
+package com.yappifychatapp.loadtest;
+
+import com.yappifychatapp.services.TypingService;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// One simulated user: a STOMP session over a raw WebSocket, registered with chat.addUser like
+// the web client does, subscribed to the JSON topic of each of its chats. Message content
+// starts with "lt:<send nanoTime>:", which is how deliveries are matched to sends - the
+// clients and the server share one JVM, so nanoTime is comparable.
+public class LoadClient {
+
+    private static final String CONTENT_MARKER = "lt:";
+    // Matches the message of a frame - the JSON topic carries one event per frame
+    private static final Pattern SENT_AT = Pattern.compile("\"content\":\"" + CONTENT_MARKER + "(\\d+):");
+
+    private final String userId;
+    private final DeliveryStats stats;
+    // The WebSocket container rejects a send while another one is in progress on the session
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private volatile StompSession session;
+
+    public LoadClient(String userId, DeliveryStats stats) {
+        this.userId = userId;
+        this.stats = stats;
+    }
+
+    public String userId() {
+        return userId;
+    }
+
+    public CompletableFuture<StompSession> connect(WebSocketStompClient stompClient, String url) {
+        return stompClient.connectAsync(url, new StompSessionHandlerAdapter() {
+            @Override
+            public void handleTransportError(StompSession session, Throwable exception) {
+                stats.recordTransportError();
+            }
+        }).thenApply(connected -> {
+            session = connected;
+            send("/app/chat.addUser", "{\"senderId\":\"" + userId + "\"}");
+            return connected;
+        });
+    }
+
+    public void subscribe(String destination) {
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                long receivedAt = System.nanoTime();
+                stats.recordFrame();
+                Matcher matcher = SENT_AT.matcher(new String((byte[]) payload, StandardCharsets.UTF_8));
+                while (matcher.find()) {
+                    stats.recordDelivered(Long.parseLong(matcher.group(1)), receivedAt);
+                }
+            }
+        });
+    }
+
+    // Typing indicators of a chat; only counted, since they carry no send time
+    public void subscribeTyping(String chatId) {
+        session.subscribe(TypingService.TYPING_TOPIC_PREFIX + chatId, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                stats.recordTypingFrame();
+            }
+        });
+    }
+
+    public void sendTyping(String chatId, boolean typing) {
+        send("/app/chat.typing", "{\"chatId\":\"" + chatId + "\",\"userId\":\"" + userId
+                + "\",\"typing\":" + typing + "}");
+        stats.recordTypingSent();
+    }
+
+    // Sends one chat message stamped with the current time; returns that time
+    public long sendMessage(String chatId, String padding) {
+        long sentAt = System.nanoTime();
+        send("/app/chat.send", "{\"chatId\":\"" + chatId + "\",\"senderId\":\"" + userId
+                + "\",\"content\":\"" + CONTENT_MARKER + sentAt + ":" + padding + "\"}");
+        return sentAt;
+    }
+
+    public void disconnect() {
+        StompSession current = session;
+        if (current != null && current.isConnected()) {
+            current.disconnect();
+        }
+    }
+
+    private void send(String destination, String json) {
+        StompHeaders headers = new StompHeaders();
+        headers.setDestination(destination);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        sendLock.lock();
+        try {
+            session.send(headers, json.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            sendLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.yappifychatapp.loadtest;
+
+import com.yappifychatapp.YappifyChatApplication;
+import com.yappifychatapp.models.Chat;
+import com.yappifychatapp.models.User;
+import com.yappifychatapp.repositories.ChatRepository;
+import com.yappifychatapp.repositories.UserRepository;
+import com.yappifychatapp.services.SubscriptionRegistry;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import jakarta.websocket.ContainerProvider;
+import jakarta.websocket.WebSocketContainer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// End-to-end load test on one machine: the application against an embedded Kafka broker and an
+// in-memory Mongo wire-protocol server, driven by STOMP clients in the same JVM through the
+// whole path - connect, subscribe, /app/chat.send, persist, Kafka, broadcast.
+//
+//   ./mvnw -P load-test verify -Dloadtest.scenario=direct-messages
+//
+// Prints throughput and delivery latency percentiles and writes them as JSON to
+// target/loadtest/<scenario>.json. Exits with 1 when fewer deliveries than min-delivery-ratio
+// arrived. Thousands of clients need as many file descriptors (ulimit -n).
+@Slf4j
+public class LoadTest {
+
+    private static final String CHAT_TOPIC = "chat-messages-topic";
+    private static final long SEND_TICK_MS = 10;
+    private static final long CONNECT_TIMEOUT_SECONDS = 120;
+    private static final long ASSIGNMENT_TIMEOUT_SECONDS = 60;
+
+    private final Scenario scenario;
+    private final DeliveryStats stats = new DeliveryStats();
+    private final MongoLatencyInjector mongoLatency;
+
+    private LoadTest(Scenario scenario) {
+        this.scenario = scenario;
+        this.mongoLatency = new MongoLatencyInjector(scenario.mongoLatencyMs());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Scenario scenario = Scenario.load(args.length > 0 ? args[0] : "smoke");
+        boolean passed = new LoadTest(scenario).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        EmbeddedKafkaKraftBroker broker = new EmbeddedKafkaKraftBroker(1, scenario.kafkaPartitions(), CHAT_TOPIC);
+        broker.afterPropertiesSet();
+        MongoServer mongo = new MongoServer(new MemoryBackend());
+        mongo.bind();
+
+        ConfigurableApplicationContext context = null;
+        List<LoadClient> clients = List.of();
+        try {
+            context = start(broker.getBrokersAsString(), mongo.getConnectionString() + "/loadtest");
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+
+            List<User> users = seedUsers(context.getBean(UserRepository.class));
+            List<Chat> chats = seedChats(context.getBean(ChatRepository.class), users);
+            mongoLatency.arm();
+            awaitAssignments(context.getBean(KafkaListenerEndpointRegistry.class));
+
+            WebSocketStompClient stompClient = stompClient();
+            clients = connect(stompClient, "ws://localhost:" + port + "/ws-chat/websocket", users);
+            List<Sender> senders = subscribe(clients, chats);
+
+            long[] window = send(senders);
+            drain();
+            return report(window[1] - window[0]);
+        } finally {
+            clients.forEach(LoadClient::disconnect);
+            if (context != null) {
+                context.close();
+            }
+            mongo.shutdownNow();
+            broker.destroy();
+        }
+    }
+
+    private ConfigurableApplicationContext start(String bootstrapServers, String mongoUri) {
+        // Command-line arguments outrank the profile file, so scenarios can override anything in it
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=0");
+        args.add("--spring.kafka.bootstrap-servers=" + bootstrapServers);
+        args.add("--spring.mongodb.uri=" + mongoUri);
+        args.add("--kafka.topic.chat-messages=" + CHAT_TOPIC);
+        for (Map.Entry<String, String> property : scenario.appProperties().entrySet()) {
+            args.add("--" + property.getKey() + "=" + property.getValue());
+        }
+        log.info("Starting application for scenario {} - {}", scenario.name(), scenario.appProperties());
+        // Applied alongside the application's own customizers to the client Boot builds
+        MongoClientSettingsBuilderCustomizer slowMongo = builder -> builder.addCommandListener(mongoLatency);
+        return new SpringApplicationBuilder(YappifyChatApplication.class)
+                .profiles("loadtest")
+                .initializers(context -> context.getBeanFactory().registerSingleton("loadTestMongoLatency", slowMongo))
+                .run(args.toArray(String[]::new));
+    }
+
+    private List<User> seedUsers(UserRepository userRepository) {
+        List<User> users = new ArrayList<>(scenario.clients());
+        for (int i = 0; i < scenario.clients(); i++) {
+            User user = new User();
+            user.setName("load-user-" + i);
+            user.setEmail("load-user-" + i + "@loadtest.local");
+            user.setPassword("not-used");
+            users.add(user);
+        }
+        return userRepository.saveAll(users);
+    }
+
+    // Members are dealt round-robin over the users, so users share chats once memberships
+    // outnumber them
+    private List<Chat> seedChats(ChatRepository chatRepository, List<User> users) {
+        List<Chat> chats = new ArrayList<>(scenario.totalChats());
+        int next = 0;
+        for (Scenario.ChatGroup group : scenario.chats()) {
+            for (int c = 0; c < group.count(); c++) {
+                List<User> members = new ArrayList<>(group.members());
+                for (int m = 0; m < group.members(); m++) {
+                    members.add(users.get(next++ % users.size()));
+                }
+                Chat chat = new Chat();
+                chat.setChatName("load-chat-" + chats.size());
+                chat.setIsGroupChat(group.members() > 2);
+                chat.setUsers(members);
+                chat.setGroupAdmin(group.members() > 2 ? members.get(0) : null);
+                chats.add(chat);
+            }
+        }
+        log.info("Seeded {} users and {} chats with {} memberships",
+                users.size(), chats.size(), scenario.totalMemberships());
+        return chatRepository.saveAll(chats);
+    }
+
+    // Broadcast consumers start at the latest offset, so nothing may be sent before they own partitions
+    private void awaitAssignments(KafkaListenerEndpointRegistry registry) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(ASSIGNMENT_TIMEOUT_SECONDS);
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            while (container.isRunning() && (container.getAssignedPartitions() == null
+                    || container.getAssignedPartitions().isEmpty())) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Listener " + container.getListenerId() + " got no partitions");
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private WebSocketStompClient stompClient() {
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        // Coalesced broadcast frames can be far larger than the 8 KB default
+        container.setDefaultMaxTextMessageBufferSize(1024 * 1024);
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient(container));
+        stompClient.setInboundMessageSizeLimit(1024 * 1024);
+        stompClient.setDefaultHeartbeat(new long[]{0, 0});
+        return stompClient;
+    }
+
+    private List<LoadClient> connect(WebSocketStompClient stompClient, String url, List<User> users) throws Exception {
+        List<LoadClient> clients = new ArrayList<>(users.size());
+        List<CompletableFuture<StompSession>> connections = new ArrayList<>(users.size());
+        long pauseNanos = TimeUnit.SECONDS.toNanos(1) / scenario.connectRate();
+        for (User user : users) {
+            LoadClient client = new LoadClient(user.getId(), stats);
+            clients.add(client);
+            connections.add(client.connect(stompClient, url));
+            LockSupport.parkNanos(pauseNanos);
+        }
+        CompletableFuture.allOf(connections.toArray(CompletableFuture[]::new))
+                .get(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        log.info("Connected {} clients", clients.size());
+        return clients;
+    }
+
+    private List<Sender> subscribe(List<LoadClient> clients, List<Chat> chats) throws InterruptedException {
+        Map<String, LoadClient> byUser = new HashMap<>();
+        clients.forEach(client -> byUser.put(client.userId(), client));
+
+        List<Sender> senders = new ArrayList<>();
+        for (Chat chat : chats) {
+            List<User> members = chat.getUsers();
+            for (User member : members) {
+                LoadClient client = byUser.get(member.getId());
+                client.subscribe(SubscriptionRegistry.CHAT_TOPIC_PREFIX + chat.getId());
+                if (scenario.typingRate() > 0) {
+                    client.subscribeTyping(chat.getId());
+                }
+            }
+            for (int s = 0; s < scenario.sendersPerChat(); s++) {
+                senders.add(new Sender(byUser.get(members.get(s).getId()), chat.getId(), members.size()));
+            }
+        }
+        // SUBSCRIBE frames are not acknowledged; the warm-up covers any stragglers
+        Thread.sleep(2000);
+        log.info("Subscribed {} memberships, {} senders", scenario.totalMemberships(), senders.size());
+        return senders;
+    }
+
+    // Sends at the scenario rate through warm-up and measurement; returns the measured window in nanos
+    private long[] send(List<Sender> senders) throws InterruptedException {
+        String padding = "x".repeat(Math.max(0, scenario.messageBytes() - 24));
+        ExecutorService sendExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+
+        long startedAt = System.nanoTime();
+        long measureFrom = startedAt + TimeUnit.SECONDS.toNanos(scenario.warmupSeconds());
+        long measureUntil = measureFrom + TimeUnit.SECONDS.toNanos(scenario.durationSeconds());
+        stats.startMeasuring(measureFrom);
+        stats.stopMeasuring(measureUntil);
+
+        long[] issued = {0};
+        long[] typingIssued = {0};
+        ticker.scheduleAtFixedRate(() -> {
+            double elapsedSeconds = (System.nanoTime() - startedAt) / 1e9;
+            // Typing events from the same senders - mostly "typing", every fourth one "stopped"
+            long typingDue = (long) (scenario.typingRate() * elapsedSeconds);
+            for (; typingIssued[0] < typingDue; typingIssued[0]++) {
+                Sender sender = senders.get((int) (typingIssued[0] % senders.size()));
+                boolean typing = typingIssued[0] / senders.size() % 4 != 3;
+                sendExecutor.execute(() -> sender.client().sendTyping(sender.chatId(), typing));
+            }
+
+            long due = (long) (scenario.sendRate() * elapsedSeconds);
+            for (; issued[0] < due; issued[0]++) {
+                Sender sender = senders.get((int) (issued[0] % senders.size()));
+                sendExecutor.execute(() -> {
+                    long sentAt = System.nanoTime();
+                    try {
+                        sentAt = sender.client().sendMessage(sender.chatId(), padding);
+                        stats.recordSent(sentAt, sender.recipients());
+                    } catch (Exception e) {
+                        stats.recordSendError(sentAt);
+                    }
+                });
+            }
+        }, 0, SEND_TICK_MS, TimeUnit.MILLISECONDS);
+
+        log.info("Sending {} msg/s - {} s warm-up, {} s measured", scenario.sendRate(),
+                scenario.warmupSeconds(), scenario.durationSeconds());
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(measureUntil - System.nanoTime()));
+        ticker.shutdownNow();
+        sendExecutor.shutdown();
+        sendExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        return new long[]{measureFrom, measureUntil};
+    }
+
+    private void drain() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(scenario.drainSeconds());
+        while (stats.delivered() < stats.expectedDeliveries() && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+    }
+
+    private boolean report(long windowNanos) throws IOException {
+        double seconds = windowNanos / 1e9;
+        double deliveryRatio = stats.expectedDeliveries() > 0
+                ? (double) stats.delivered() / stats.expectedDeliveries()
+                : 0.0;
+        boolean passed = deliveryRatio >= scenario.minDeliveryRatio();
+
+        String summary = String.format(Locale.ROOT, """
+                        Scenario %s - %d clients, %d chats, %d memberships, Mongo latency %d ms
+                          sent          %d (%.1f msg/s), %d send errors
+                          delivered     %d of %d (%.4f), %.1f deliveries/s in %d frames
+                          latency ms    p50 %.2f  p99 %.2f  p999 %.2f  max %.2f
+                          typing        %d sent, %d frames received
+                          transport errors %d - %s""",
+                scenario.name(), scenario.clients(), scenario.totalChats(), scenario.totalMemberships(),
+                scenario.mongoLatencyMs(),
+                stats.sent(), stats.sent() / seconds, stats.sendErrors(),
+                stats.delivered(), stats.expectedDeliveries(), deliveryRatio, stats.delivered() / seconds, stats.frames(),
+                stats.percentileMillis(50), stats.percentileMillis(99), stats.percentileMillis(99.9), stats.maxMillis(),
+                stats.typingSent(), stats.typingFrames(),
+                stats.transportErrors(), passed ? "PASSED" : "FAILED (min-delivery-ratio " + scenario.minDeliveryRatio() + ")");
+        System.out.println(summary);
+
+        String json = String.format(Locale.ROOT, """
+                        {"scenario":"%s","clients":%d,"chats":%d,"memberships":%d,"mongoLatencyMs":%d,"durationSeconds":%.3f,\
+                        "sent":%d,"sendErrors":%d,"sendRate":%.3f,"expectedDeliveries":%d,"delivered":%d,\
+                        "deliveryRatio":%.6f,"deliveryRate":%.3f,"frames":%d,"transportErrors":%d,\
+                        "latencyMs":{"p50":%.3f,"p99":%.3f,"p999":%.3f,"max":%.3f},\
+                        "typingSent":%d,"typingFrames":%d,"passed":%b}
+                        """,
+                scenario.name(), scenario.clients(), scenario.totalChats(), scenario.totalMemberships(),
+                scenario.mongoLatencyMs(), seconds,
+                stats.sent(), stats.sendErrors(), stats.sent() / seconds, stats.expectedDeliveries(), stats.delivered(),
+                deliveryRatio, stats.delivered() / seconds, stats.frames(), stats.transportErrors(),
+                stats.percentileMillis(50), stats.percentileMillis(99), stats.percentileMillis(99.9), stats.maxMillis(),
+                stats.typingSent(), stats.typingFrames(), passed);
+        Path report = Path.of("target", "loadtest", scenario.name() + ".json");
+        Files.createDirectories(report.getParent());
+        Files.writeString(report, json, StandardCharsets.UTF_8);
+        log.info("Report written to {}", report.toAbsolutePath());
+        return passed;
+    }
+
+    private record Sender(LoadClient client, String chatId, int recipients) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.yappifychatapp.loadtest;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Makes the in-memory Mongo server behave like a slow one: command listeners run on the calling
+// thread before the command goes out, so parking there adds the delay to every round trip the
+// application makes. Off until armed, so seeding runs at full speed.
+public class MongoLatencyInjector implements CommandListener {
+
+    private final long delayNanos;
+    private volatile boolean armed;
+
+    public MongoLatencyInjector(long delayMillis) {
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+    }
+
+    public void arm() {
+        armed = delayNanos > 0;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (armed) {
+            LockSupport.parkNanos(delayNanos);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.yappifychatapp.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+// One load-test run, read from a properties file - by name from scenarios/ on the classpath, or
+// by path. Keys are listed in scenarios/smoke.properties; app.* keys are passed to the
+// application with the prefix removed.
+public record Scenario(String name,
+                       int clients,
+                       List<ChatGroup> chats,
+                       int sendersPerChat,
+                       double sendRate,
+                       double typingRate,
+                       int messageBytes,
+                       int connectRate,
+                       int warmupSeconds,
+                       int durationSeconds,
+                       int drainSeconds,
+                       int kafkaPartitions,
+                       int mongoLatencyMs,
+                       double minDeliveryRatio,
+                       Map<String, String> appProperties) {
+
+    private static final String APP_PREFIX = "app.";
+
+    // count chats of members each, e.g. "1000x2"
+    public record ChatGroup(int count, int members) {
+    }
+
+    public static Scenario load(String nameOrPath) throws IOException {
+        Properties properties = new Properties();
+        Path path = Path.of(nameOrPath);
+        String name;
+        if (Files.isRegularFile(path)) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            name = path.getFileName().toString().replaceFirst("\\.properties$", "");
+        } else {
+            try (InputStream in = Scenario.class.getResourceAsStream("/scenarios/" + nameOrPath + ".properties")) {
+                if (in == null) {
+                    throw new IllegalArgumentException("No scenario file or classpath scenario named " + nameOrPath);
+                }
+                properties.load(in);
+            }
+            name = nameOrPath;
+        }
+        return parse(name, properties);
+    }
+
+    private static Scenario parse(String name, Properties properties) {
+        Map<String, String> app = new LinkedHashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(APP_PREFIX)) {
+                app.put(key.substring(APP_PREFIX.length()), properties.getProperty(key).trim());
+            }
+        }
+
+        Scenario scenario = new Scenario(
+                name,
+                intValue(properties, "clients", null),
+                chatGroups(value(properties, "chats", null)),
+                intValue(properties, "senders-per-chat", "1"),
+                Double.parseDouble(value(properties, "send-rate", null)),
+                Double.parseDouble(value(properties, "typing-rate", "0")),
+                intValue(properties, "message-bytes", "100"),
+                intValue(properties, "connect-rate", "500"),
+                intValue(properties, "warmup-seconds", "10"),
+                intValue(properties, "duration-seconds", "60"),
+                intValue(properties, "drain-seconds", "10"),
+                intValue(properties, "kafka.partitions", "6"),
+                intValue(properties, "mongo.latency-ms", "0"),
+                Double.parseDouble(value(properties, "min-delivery-ratio", "0")),
+                app);
+        scenario.validate();
+        return scenario;
+    }
+
+    public int totalChats() {
+        return chats.stream().mapToInt(ChatGroup::count).sum();
+    }
+
+    public long totalMemberships() {
+        return chats.stream().mapToLong(group -> (long) group.count() * group.members()).sum();
+    }
+
+    private void validate() {
+        if (clients <= 0 || sendRate <= 0 || durationSeconds <= 0 || connectRate <= 0) {
+            throw new IllegalArgumentException("clients, send-rate, connect-rate and duration-seconds must be positive");
+        }
+        for (ChatGroup group : chats) {
+            if (group.members() < 2 || group.members() > clients) {
+                throw new IllegalArgumentException("Chats need between 2 and " + clients + " members, got " + group.members());
+            }
+            if (sendersPerChat < 1 || sendersPerChat > group.members()) {
+                throw new IllegalArgumentException("senders-per-chat must be between 1 and the chat size " + group.members());
+            }
+        }
+        if (typingRate < 0) {
+            throw new IllegalArgumentException("typing-rate must not be negative");
+        }
+        if (mongoLatencyMs < 0) {
+            throw new IllegalArgumentException("mongo.latency-ms must not be negative");
+        }
+        if (messageBytes < 32) {
+            throw new IllegalArgumentException("message-bytes must be at least 32 - the send timestamp is carried in the content");
+        }
+    }
+
+    private static List<ChatGroup> chatGroups(String value) {
+        List<ChatGroup> groups = new ArrayList<>();
+        for (String part : value.split(",")) {
+            String[] countAndSize = part.trim().toLowerCase().split("x");
+            if (countAndSize.length != 2) {
+                throw new IllegalArgumentException("Chats are given as <count>x<members>, got " + part);
+            }
+            groups.add(new ChatGroup(Integer.parseInt(countAndSize[0].trim()), Integer.parseInt(countAndSize[1].trim())));
+        }
+        return groups;
+    }
+
+    private static int intValue(Properties properties, String key, String defaultValue) {
+        return Integer.parseInt(value(properties, key, defaultValue));
+    }
+
+    private static String value(Properties properties, String key, String defaultValue) {
+        String value = properties.getProperty(key, defaultValue);
+        if (value == null) {
+            throw new IllegalArgumentException("Scenario is missing " + key);
+        }
+        return value.trim();
+    }
+}
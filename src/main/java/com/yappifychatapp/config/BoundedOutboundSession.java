@@ -0,0 +1,309 @@
+package com.yappifychatapp.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+// Gives every WebSocket session its own bounded outbound queue, drained on a separate thread.
+// Callers never block on the socket, so one slow client cannot hold up delivery to others.
+// What happens when the queue is full depends on the overflow policy.
+@Slf4j
+public class BoundedOutboundSession extends WebSocketSessionDecorator {
+
+    public enum OverflowPolicy {
+        // Discard the oldest queued chat message
+        DROP_OLDEST,
+        // Replace queued chat messages with one "missed N messages" marker per subscription
+        RESYNC,
+        // Close the session; the client reconnects and re-fetches
+        DISCONNECT
+    }
+
+    private static final String MESSAGE_FRAME_PREFIX = "MESSAGE\n";
+
+    private final int capacity;
+    private final long sendTimeLimitNanos;
+    private final OverflowPolicy policy;
+    private final Executor sendExecutor;
+    private final OutboundQueueMetrics metrics;
+
+    // Guarded by this
+    private final ArrayDeque<Object> queue = new ArrayDeque<>();
+    private final Map<String, ResyncMarker> pendingMarkers = new HashMap<>();
+    private boolean draining;
+    private int highWaterMark;
+    private long queuedBytes;
+
+    // nanoTime when the frame currently being written started, 0 when idle
+    private volatile long sendStartedAt;
+    private volatile boolean closing;
+
+    public BoundedOutboundSession(WebSocketSession delegate, int capacity, long sendTimeLimitMillis,
+                                  OverflowPolicy policy, Executor sendExecutor, OutboundQueueMetrics metrics) {
+        super(delegate);
+        this.capacity = capacity;
+        this.sendTimeLimitNanos = sendTimeLimitMillis * 1_000_000L;
+        this.policy = policy;
+        this.sendExecutor = sendExecutor;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (checkSendTimeLimit()) {
+            return;
+        }
+
+        boolean startDrain;
+        synchronized (this) {
+            if (queue.size() >= capacity && !handleOverflow(message)) {
+                return;
+            }
+            queue.add(new Frame(message, isChatMessage(message)));
+            queuedBytes += message.getPayloadLength();
+            if (queue.size() > highWaterMark) {
+                highWaterMark = queue.size();
+                metrics.recordHighWaterMark(highWaterMark);
+            }
+            startDrain = !draining;
+            draining = true;
+        }
+
+        if (startDrain) {
+            sendExecutor.execute(this::drain);
+        }
+    }
+
+    // The socket has been stuck on one frame for too long - treat the client as gone. Checked on
+    // every enqueue and by a periodic sweep (WebSocketService), which catches quiet sessions too.
+    // Returns whether the session is being closed.
+    public boolean checkSendTimeLimit() {
+        long startedAt = sendStartedAt;
+        if (startedAt != 0 && System.nanoTime() - startedAt > sendTimeLimitNanos) {
+            closeSlowSession("send time limit exceeded");
+        }
+        return closing;
+    }
+
+    public synchronized int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    // Payload bytes currently held for this session - the part of its footprint that varies with load
+    public synchronized long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    // Returns whether the incoming message should still be queued
+    private boolean handleOverflow(WebSocketMessage<?> message) {
+        switch (policy) {
+            case DISCONNECT -> {
+                closeSlowSession("outbound queue full");
+                return false;
+            }
+            case DROP_OLDEST -> {
+                Iterator<Object> it = queue.iterator();
+                while (it.hasNext()) {
+                    if (it.next() instanceof Frame frame && frame.chatMessage()) {
+                        it.remove();
+                        queuedBytes -= frame.message().getPayloadLength();
+                        metrics.recordDropped(policy, 1);
+                        return true;
+                    }
+                }
+                // Only control frames are queued - drop the new message rather than a CONNECTED/RECEIPT
+                if (isChatMessage(message)) {
+                    metrics.recordDropped(policy, 1);
+                    return false;
+                }
+                return true;
+            }
+            case RESYNC -> {
+                List<WebSocketMessage<?>> dropped = new ArrayList<>();
+                Iterator<Object> it = queue.iterator();
+                while (it.hasNext()) {
+                    if (it.next() instanceof Frame frame && frame.chatMessage()) {
+                        it.remove();
+                        queuedBytes -= frame.message().getPayloadLength();
+                        dropped.add(frame.message());
+                    }
+                }
+                // Markers are queued here, after the iteration above is finished
+                dropped.forEach(this::addMissed);
+                if (dropped.isEmpty() && isChatMessage(message)) {
+                    addMissed(message);
+                    metrics.recordDropped(policy, 1);
+                    return false;
+                }
+                metrics.recordDropped(policy, dropped.size());
+                return true;
+            }
+        }
+        return true;
+    }
+
+    private void addMissed(WebSocketMessage<?> message) {
+        StompHeaderAccessor accessor = decodeHeaders(message);
+        if (accessor == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+
+        ResyncMarker marker = pendingMarkers.get(accessor.getSubscriptionId());
+        if (marker == null) {
+            marker = new ResyncMarker(accessor.getSubscriptionId(), accessor.getDestination());
+            pendingMarkers.put(marker.subscriptionId, marker);
+            queue.add(marker);
+        }
+        marker.missed++;
+    }
+
+    private void drain() {
+        while (true) {
+            WebSocketMessage<?> next;
+            synchronized (this) {
+                Object entry = queue.poll();
+                if (entry == null) {
+                    draining = false;
+                    return;
+                }
+                if (entry instanceof ResyncMarker marker) {
+                    pendingMarkers.remove(marker.subscriptionId);
+                    next = marker.toFrame();
+                } else {
+                    next = ((Frame) entry).message();
+                    queuedBytes -= next.getPayloadLength();
+                }
+            }
+
+            sendStartedAt = System.nanoTime();
+            try {
+                super.sendMessage(next);
+            } catch (Exception e) {
+                // The socket is broken - no later message may start another drain against it
+                log.debug("Outbound send failed, closing session - SessionId: {}: {}", getId(), e.getMessage());
+                closing = true;
+                synchronized (this) {
+                    queue.clear();
+                    pendingMarkers.clear();
+                    queuedBytes = 0;
+                    draining = false;
+                }
+                closeDelegate(CloseStatus.SERVER_ERROR);
+                return;
+            } finally {
+                sendStartedAt = 0;
+            }
+        }
+    }
+
+    // Synchronized - the periodic sweep and a sending thread may both find the session stuck
+    private synchronized void closeSlowSession(String reason) {
+        if (closing) {
+            return;
+        }
+        closing = true;
+        metrics.recordSlowDisconnect();
+        log.warn("Closing slow WebSocket session - SessionId: {}, reason: {}", getId(), reason);
+
+        closeDelegate(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    // Closing may block on the same stuck socket, so never do it on the caller's thread
+    private void closeDelegate(CloseStatus status) {
+        sendExecutor.execute(() -> {
+            try {
+                getDelegate().close(status);
+            } catch (Exception e) {
+                log.debug("Error closing session {}: {}", getId(), e.getMessage());
+            }
+        });
+    }
+
+    // Only broker MESSAGE frames may be dropped; CONNECTED, RECEIPT and ERROR always go out
+    private static boolean isChatMessage(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            return text.getPayload().startsWith(MESSAGE_FRAME_PREFIX);
+        }
+        if (message instanceof BinaryMessage binary) {
+            ByteBuffer payload = binary.getPayload().duplicate();
+            byte[] prefix = MESSAGE_FRAME_PREFIX.getBytes(StandardCharsets.US_ASCII);
+            if (payload.remaining() < prefix.length) {
+                return false;
+            }
+            for (byte b : prefix) {
+                if (payload.get() != b) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static StompHeaderAccessor decodeHeaders(WebSocketMessage<?> message) {
+        ByteBuffer buffer = message instanceof TextMessage text
+                ? ByteBuffer.wrap(text.asBytes())
+                : ((BinaryMessage) message).getPayload().duplicate();
+        for (Message<byte[]> frame : new StompDecoder().decode(buffer)) {
+            StompHeaderAccessor accessor = StompHeaderAccessor.wrap(frame);
+            if (accessor.getCommand() == StompCommand.MESSAGE) {
+                return accessor;
+            }
+        }
+        return null;
+    }
+
+    private record Frame(WebSocketMessage<?> message, boolean chatMessage) {
+    }
+
+    private static final class ResyncMarker {
+
+        private final String subscriptionId;
+        private final String destination;
+        private int missed;
+
+        private ResyncMarker(String subscriptionId, String destination) {
+            this.subscriptionId = subscriptionId;
+            this.destination = destination;
+        }
+
+        // Delivered on the same subscription, so clients see it in their normal chat handler
+        private TextMessage toFrame() {
+            StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+            accessor.setSubscriptionId(subscriptionId);
+            accessor.setDestination(destination);
+            accessor.setMessageId(UUID.randomUUID().toString());
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            accessor.setNativeHeader("resync", "true");
+
+            byte[] payload = ("{\"type\":\"RESYNC\",\"missed\":" + missed + "}").getBytes(StandardCharsets.UTF_8);
+            return new TextMessage(new StompEncoder().encode(accessor.toMessageHeaders(), payload));
+        }
+    }
+}
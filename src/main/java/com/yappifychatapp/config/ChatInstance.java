@@ -0,0 +1,55 @@
+package com.yappifychatapp.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+// Identity of this application node, used to scope per-node Kafka consumer groups
+@Component("chatInstance")
+@Getter
+public class ChatInstance {
+
+    private static final String SHARED_BROADCAST_GROUP = "chat-consumer-group";
+
+    private final String instanceId;
+    private final boolean fanOut;
+
+    public ChatInstance(@Value("${chat.instance-id:}") String instanceId,
+                        @Value("${chat.broadcast.fan-out:true}") boolean fanOut) {
+        // Stable ids: chat.instance-id defaults to CHAT_INSTANCE_ID, then HOSTNAME, so a restarted
+        // node rejoins its own groups instead of adding new ones. Rejoining never replays the
+        // backlog - NodeGroupRebalanceListener starts each partition at the end. HOSTNAME only
+        // survives a restart on a StatefulSet; elsewhere set CHAT_INSTANCE_ID, or the groups of a
+        // crashed node stay until the broker expires their offsets. The random fallback is for
+        // local runs; NodeGroupCleanup removes this node's groups on a clean shutdown either way.
+        this.instanceId = instanceId == null || instanceId.isBlank()
+                ? UUID.randomUUID().toString()
+                : instanceId;
+        this.fanOut = fanOut;
+    }
+
+    // In fan-out mode every node reads the whole topic and delivers to its own WebSocket sessions.
+    // Otherwise nodes share one group and each message reaches only the node that consumed it.
+    public String getBroadcastGroupId() {
+        return fanOut ? SHARED_BROADCAST_GROUP + "-" + instanceId : SHARED_BROADCAST_GROUP;
+    }
+
+    public String getPresenceGroupId() {
+        return "chat-presence-" + instanceId;
+    }
+
+    public String getTypingGroupId() {
+        return "chat-typing-" + instanceId;
+    }
+
+    // Consumer groups of this node alone that keep offsets on the broker. The presence group
+    // commits none, so the broker drops it by itself.
+    public List<String> getNodeGroupIds() {
+        return fanOut
+                ? List.of(getBroadcastGroupId(), getTypingGroupId())
+                : List.of(getTypingGroupId());
+    }
+}
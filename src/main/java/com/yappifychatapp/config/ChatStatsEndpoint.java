@@ -0,0 +1,187 @@
+package com.yappifychatapp.config;
+
+import com.yappifychatapp.services.ChatActivity;
+import com.yappifychatapp.services.ListenerAutoscaler;
+import com.yappifychatapp.services.SubscriptionRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+// GET /actuator/chatstats - what this node's chat runtime is doing right now, for incidents.
+// Everything is read from gauges and counters that are already maintained, the subscription
+// maps and the last complete ChatActivity window: no locks beyond the per-bin reads of a
+// ConcurrentHashMap walk, no Mongo, no Kafka round trips (lag is as of the last autoscale check).
+// "kafka" only lists the listeners ListenerAutoscaler checks (chat.kafka.autoscale.listeners) and
+// is empty when chat.kafka.autoscale.enabled=false; the local-bus profile has no Kafka at all.
+// Restricted to chat.admin.user-ids in SecurityConfig - the output names chats and their rates.
+@Component
+@Endpoint(id = "chatstats")
+public class ChatStatsEndpoint {
+
+    private final MeterRegistry meterRegistry;
+    private final SubscriptionRegistry subscriptionRegistry;
+    private final ChatActivity chatActivity;
+    private final ListenerAutoscaler listenerAutoscaler;
+
+    // Length of the busiest-chat and most-subscribed lists
+    @Value("${chat.stats.top-chats:10}")
+    private int topChats;
+
+    public ChatStatsEndpoint(MeterRegistry meterRegistry,
+                             SubscriptionRegistry subscriptionRegistry,
+                             ChatActivity chatActivity,
+                             ListenerAutoscaler listenerAutoscaler) {
+        this.meterRegistry = meterRegistry;
+        this.subscriptionRegistry = subscriptionRegistry;
+        this.chatActivity = chatActivity;
+        this.listenerAutoscaler = listenerAutoscaler;
+    }
+
+    @ReadOperation
+    public ChatStats stats() {
+        return new ChatStats(
+                new Sessions(
+                        (long) gauge("chat.websocket.sessions"),
+                        (long) gauge("chat.websocket.users"),
+                        (long) gauge("chat.presence.online")),
+                new Subscriptions(destinations(false), destinations(true)),
+                channels(),
+                listenerAutoscaler.status(),
+                caches(),
+                busiestChats());
+    }
+
+    private Destinations destinations(boolean binary) {
+        String prefix = binary ? SubscriptionRegistry.CHAT_BINARY_TOPIC_PREFIX : SubscriptionRegistry.CHAT_TOPIC_PREFIX;
+        long[] totals = new long[2];
+        TopN<Destination> top = new TopN<>(topChats, Comparator.comparingInt(Destination::subscribers));
+        subscriptionRegistry.forEachChat(binary, (chatId, subscribers) -> {
+            totals[0]++;
+            totals[1] += subscribers;
+            top.offer(new Destination(prefix + chatId, subscribers));
+        });
+        return new Destinations(totals[0], totals[1], top.sorted());
+    }
+
+    // STOMP channel executors by channel, plus the in-process bus when it is the active ChatEventBus
+    private Map<String, Channel> channels() {
+        Map<String, Channel> channels = new TreeMap<>();
+        for (Gauge queued : meterRegistry.find("chat.websocket.channel.queue.size").gauges()) {
+            String channel = queued.getId().getTag("channel");
+            Gauge active = meterRegistry.find("chat.websocket.channel.active").tag("channel", channel).gauge();
+            channels.put(channel, new Channel((long) queued.value(), active != null ? (long) active.value() : 0));
+        }
+        Gauge bus = meterRegistry.find("chat.bus.backlog").gauge();
+        if (bus != null) {
+            channels.put("bus", new Channel((long) bus.value(), 0));
+        }
+        return channels;
+    }
+
+    private Caches caches() {
+        // A resume served from the replay buffer is a hit, one that had to query the store a miss
+        double hits = counter("chat.resume.chats", "source", "memory");
+        double misses = counter("chat.resume.chats", "source", "store");
+        return new Caches(
+                new Replay((long) gauge("chat.resume.buffer.chats"), (long) gauge("chat.resume.buffer.bytes"),
+                        (long) hits, (long) misses, hits + misses > 0 ? hits / (hits + misses) : null),
+                (long) gauge("chat.ratelimit.buckets"),
+                (long) gauge("chat.fanout.hot.chats"));
+    }
+
+    private BusiestChats busiestChats() {
+        TopN<ChatRate> top = new TopN<>(topChats, Comparator.comparingDouble(ChatRate::messagesPerSecond));
+        chatActivity.forEachRate((chatId, rate) -> top.offer(new ChatRate(chatId, rate, 0)));
+        List<ChatRate> chats = top.sorted().stream()
+                .map(chat -> new ChatRate(chat.chatId(), chat.messagesPerSecond(),
+                        subscriptionRegistry.getSubscriberCount(chat.chatId())))
+                .toList();
+        return new BusiestChats(chatActivity.windowMs(), chatActivity.activeChats(), chats);
+    }
+
+    private double gauge(String name) {
+        Gauge gauge = meterRegistry.find(name).gauge();
+        return gauge != null ? gauge.value() : 0;
+    }
+
+    private double counter(String name, String tagKey, String tagValue) {
+        Counter counter = meterRegistry.find(name).tag(tagKey, tagValue).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    // Keeps the limit largest elements offered; a min-heap, so each offer is O(log limit)
+    private static final class TopN<T> {
+
+        private final int limit;
+        private final Comparator<T> order;
+        private final PriorityQueue<T> heap;
+
+        private TopN(int limit, Comparator<T> order) {
+            this.limit = limit;
+            this.order = order;
+            this.heap = new PriorityQueue<>(Math.max(1, limit + 1), order);
+        }
+
+        private void offer(T element) {
+            if (limit <= 0) {
+                return;
+            }
+            if (heap.size() < limit) {
+                heap.add(element);
+            } else if (order.compare(element, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(element);
+            }
+        }
+
+        // Largest first
+        private List<T> sorted() {
+            List<T> sorted = new ArrayList<>(heap);
+            sorted.sort(order.reversed());
+            return sorted;
+        }
+    }
+
+    public record ChatStats(Sessions sessions, Subscriptions subscriptions, Map<String, Channel> channels,
+                            Map<String, ListenerAutoscaler.ListenerStatus> kafka, Caches caches,
+                            BusiestChats busiestChats) {
+    }
+
+    public record Sessions(long open, long users, long onlineInCluster) {
+    }
+
+    public record Subscriptions(Destinations json, Destinations binary) {
+    }
+
+    public record Destinations(long chats, long subscriptions, List<Destination> mostSubscribed) {
+    }
+
+    public record Destination(String destination, int subscribers) {
+    }
+
+    public record Channel(long queued, long active) {
+    }
+
+    public record Caches(Replay replay, long rateLimitBuckets, long hotChats) {
+    }
+
+    public record Replay(long chats, long bytes, long hits, long misses, Double hitRate) {
+    }
+
+    public record BusiestChats(long windowMs, int activeChats, List<ChatRate> chats) {
+    }
+
+    public record ChatRate(String chatId, double messagesPerSecond, int localSubscribers) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.yappifychatapp.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Records queue wait, run time and backlog for tasks of one STOMP channel executor
+public class InstrumentedTaskDecorator implements TaskDecorator {
+
+    private final Timer waitTimer;
+    private final Timer executionTimer;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public InstrumentedTaskDecorator(String channel, MeterRegistry meterRegistry) {
+        this.waitTimer = Timer.builder("chat.websocket.channel.task.wait")
+                .tag("channel", channel)
+                .description("Time a STOMP channel task spent queued before it started")
+                .register(meterRegistry);
+        this.executionTimer = Timer.builder("chat.websocket.channel.task.execution")
+                .tag("channel", channel)
+                .description("Time a STOMP channel task spent running")
+                .register(meterRegistry);
+
+        // Submitted but not yet finished - works for pooled and virtual-thread executors alike
+        Gauge.builder("chat.websocket.channel.pending", pending, AtomicInteger::get)
+                .tag("channel", channel)
+                .description("STOMP channel tasks queued or running")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        long submittedAt = System.nanoTime();
+        pending.incrementAndGet();
+
+        return () -> {
+            long startedAt = System.nanoTime();
+            waitTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+            try {
+                runnable.run();
+            } finally {
+                executionTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                pending.decrementAndGet();
+            }
+        };
+    }
+}
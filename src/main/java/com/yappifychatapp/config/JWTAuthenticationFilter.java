@@ -5,6 +5,8 @@ import com.yappifychatapp.services.UserService;
 import com.yappifychatapp.utils.JWTUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -15,13 +17,18 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.util.List;
 
 
 @RequiredArgsConstructor
 public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
+    // Granted to the users in chat.admin.user-ids; SecurityConfig decides what it unlocks
+    public static final String ADMIN_ROLE = "ADMIN";
+
     private final JWTUtil jwtUtil;
     private final UserService userService;
+    private final List<String> adminUserIds;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -40,8 +47,15 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
         if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             User user = userService.getUserById(userId);
+            if (user.isDeleted()) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            List<GrantedAuthority> authorities = adminUserIds.contains(user.getId())
+                    ? List.of(new SimpleGrantedAuthority("ROLE_" + ADMIN_ROLE))
+                    : List.of();
             UsernamePasswordAuthenticationToken authToken =
-                    new UsernamePasswordAuthenticationToken(user, null, null);
+                    new UsernamePasswordAuthenticationToken(user, null, authorities);
             authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authToken);
         }
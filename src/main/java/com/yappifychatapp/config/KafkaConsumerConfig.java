@@ -1,6 +1,11 @@
 package com.yappifychatapp.config;
 
+import com.yappifychatapp.utils.ChatEventDeserializer;
+import com.yappifychatapp.utils.KeyedSerialExecutor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -9,13 +14,14 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
 @EnableKafka
 @Configuration
@@ -24,6 +30,30 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // Upper bound on a broadcast batch - larger polls amortize more per-record overhead
+    @Value("${chat.broadcast.max-poll-records:500}")
+    private int broadcastMaxPollRecords;
+
+    // Parallel mode worker lanes - 0 means one per available core
+    @Value("${chat.broadcast.parallel.workers:0}")
+    private int parallelWorkers;
+
+    // Records dispatched but not yet delivered; the listener blocks beyond this
+    @Value("${chat.broadcast.parallel.max-in-flight:10000}")
+    private int parallelMaxInFlight;
+
+    // Starting consumer counts; ListenerAutoscaler adjusts running containers from lag and latency.
+    // Notifications are cheap per record, broadcast fan-out is not, so they are sized separately.
+    @Value("${chat.kafka.notification.concurrency:3}")
+    private int notificationConcurrency;
+
+    @Value("${chat.broadcast.concurrency:3}")
+    private int broadcastConcurrency;
+
+    // Single-node installs run without a broker - listeners on the shared factories stay stopped
+    @Value("${chat.cluster.enabled:true}")
+    private boolean clusterEnabled;
+
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
@@ -34,11 +64,8 @@ public class KafkaConsumerConfig {
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         props.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class);
-        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
-
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.yappifychatapp.*");
-        props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
-        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "com.yappifychatapp.dto.KafkaMessageDTO");
+        // Binary or JSON chat events, decided per record
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, ChatEventDeserializer.class);
 
         // Consumer tuning
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
@@ -49,11 +76,15 @@ public class KafkaConsumerConfig {
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
+            KafkaRebalanceMetrics rebalanceMetrics) {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
-        factory.setConcurrency(3); // Number of consumer threads
+        factory.setConcurrency(notificationConcurrency); // Number of consumer threads
+        factory.getContainerProperties().setConsumerRebalanceListener(rebalanceMetrics);
+        enableListenerTimers(factory.getContainerProperties());
+        factory.setAutoStartup(clusterEnabled);
 
         // Configure error handler - skip invalid messages and continue
         DefaultErrorHandler errorHandler = new DefaultErrorHandler(
@@ -63,4 +94,124 @@ public class KafkaConsumerConfig {
 
         return factory;
     }
+
+    // Broadcast path - values stay raw record bytes; they are converted to a wire format at most
+    // once per message (see ChatEventPayloads), or forwarded as-is when the encodings match.
+    // Per-node groups start at the end of each partition (see NodeGroupRebalanceListener).
+    @Bean
+    public ConsumerFactory<String, byte[]> broadcastConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+
+        // Consumer tuning
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, broadcastMaxPollRecords);
+
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> broadcastListenerContainerFactory(
+            NodeGroupRebalanceListener rebalanceListener) {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(broadcastConsumerFactory());
+        factory.setConcurrency(broadcastConcurrency); // Number of consumer threads
+        factory.getContainerProperties().setConsumerRebalanceListener(rebalanceListener);
+        enableListenerTimers(factory.getContainerProperties());
+        factory.setAutoStartup(clusterEnabled);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(0L, 0L)));
+        return factory;
+    }
+
+    // Same consumer setup, but the listener receives each poll as one list
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> broadcastBatchListenerContainerFactory(
+            NodeGroupRebalanceListener rebalanceListener) {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(broadcastConsumerFactory());
+        factory.setConcurrency(broadcastConcurrency);
+        factory.getContainerProperties().setConsumerRebalanceListener(rebalanceListener);
+        enableListenerTimers(factory.getContainerProperties());
+        factory.setAutoStartup(clusterEnabled);
+        factory.setBatchListener(true);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(0L, 0L)));
+        return factory;
+    }
+
+    // Parallel mode - the listener hands records to chat-keyed worker lanes and acknowledges each
+    // one when its delivery finishes. Async acks let those acknowledgements arrive out of order;
+    // the container only commits up to the lowest offset whose record is not done yet.
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> broadcastParallelListenerContainerFactory(
+            NodeGroupRebalanceListener rebalanceListener) {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(broadcastConsumerFactory());
+        factory.setConcurrency(broadcastConcurrency);
+        factory.getContainerProperties().setConsumerRebalanceListener(rebalanceListener);
+        enableListenerTimers(factory.getContainerProperties());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        factory.setAutoStartup(clusterEnabled);
+
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        factory.getContainerProperties().setKafkaConsumerProperties(overrides);
+
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(0L, 0L)));
+        return factory;
+    }
+
+    // ListenerAutoscaler reads listener latency from the spring.kafka.listener timers, one per
+    // child container (tag name=<listener id>-<n>). Set explicitly: with observation on, the
+    // container records observations instead and the timers never appear.
+    private static void enableListenerTimers(ContainerProperties properties) {
+        properties.setMicrometerEnabled(true);
+        properties.setObservationEnabled(false);
+    }
+
+    // Worker lanes for parallel mode: one chat always maps to the same lane, which keeps its order
+    @Bean(destroyMethod = "close")
+    public KeyedSerialExecutor broadcastWorkers(MeterRegistry meterRegistry) {
+        int lanes = parallelWorkers > 0 ? parallelWorkers : Runtime.getRuntime().availableProcessors();
+        KeyedSerialExecutor executor = new KeyedSerialExecutor("broadcast-worker", lanes, parallelMaxInFlight);
+        Gauge.builder("chat.broadcast.parallel.in-flight", executor, KeyedSerialExecutor::getInFlight)
+                .description("Records dispatched to worker lanes and not yet delivered")
+                .register(meterRegistry);
+        return executor;
+    }
+
+    // Presence path - every node replays the compacted presence topic from the start. Offsets are
+    // never committed: a restart under the same instance id must replay too, and a group without
+    // offsets is dropped by the broker once its consumer is gone, crash or not.
+    @Bean
+    public ConsumerFactory<String, byte[]> presenceConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500);
+
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> presenceListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(presenceConsumerFactory());
+        factory.setConcurrency(1);
+        // Manual acks that the listener never gives - the container commits nothing
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setAutoStartup(clusterEnabled);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(0L, 0L)));
+        return factory;
+    }
 }
\ No newline at end of file
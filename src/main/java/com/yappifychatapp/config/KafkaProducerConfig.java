@@ -1,5 +1,6 @@
 package com.yappifychatapp.config;
 
+import com.yappifychatapp.utils.ChatEventSerializer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,7 +9,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -19,27 +19,34 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // Chat message events in the compact binary layout (see ChatEventCodec). Off by default: every
+    // consumer has to read both encodings first, so turn it on for producers only after upgrading them.
+    @Value("${chat.kafka.binary-events:false}")
+    private boolean binaryEvents;
+
+    // Batch-level compression on top of the compact encoding - none, gzip, snappy, lz4 or zstd
+    @Value("${chat.kafka.compression-type:lz4}")
+    private String compressionType;
+
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-
-        // Use the new Jackson2JsonSerializer from spring-kafka 4.0+
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
-                "org.apache.kafka.common.serialization.StringSerializer");
+        // No value serializer class here - the instance is set on the factory below
 
         // Performance tuning
         configProps.put(ProducerConfig.ACKS_CONFIG, "1");
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
         configProps.put(ProducerConfig.LINGER_MS_CONFIG, 10);
         configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
 
         DefaultKafkaProducerFactory<String, Object> factory =
                 new DefaultKafkaProducerFactory<>(configProps);
 
-        // Set the value serializer to use Jackson
-        factory.setValueSerializer(new JsonSerializer<>());
+        // Binary chat events, Jackson for everything else on this template
+        factory.setValueSerializer(new ChatEventSerializer(binaryEvents));
 
         return factory;
     }
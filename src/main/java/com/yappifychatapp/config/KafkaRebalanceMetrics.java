@@ -0,0 +1,34 @@
+package com.yappifychatapp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+// Counts partition assignments per consumer group. Every rebalance - including the ones a
+// concurrency change causes - ends with an assignment on each consumer of the group.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaRebalanceMetrics implements ConsumerAwareRebalanceListener {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        String group = consumer.groupMetadata().groupId();
+        meterRegistry.counter("chat.kafka.rebalances", "group", group).increment();
+        log.debug("Partitions assigned in group {}: {}", group, partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        meterRegistry.counter("chat.kafka.partitions.lost", "group", consumer.groupMetadata().groupId())
+                .increment(partitions.size());
+    }
+}
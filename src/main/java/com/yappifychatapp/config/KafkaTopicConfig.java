@@ -0,0 +1,43 @@
+package com.yappifychatapp.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    @Value("${kafka.topic.presence}")
+    private String presenceTopic;
+
+    @Value("${kafka.topic.typing}")
+    private String typingTopic;
+
+    // Replication factor of the topics created here - 1 only suits a single-broker setup
+    @Value("${kafka.topic.replicas:1}")
+    private int replicas;
+
+    // Compacted: only the latest state per (user, node) key is kept, so a starting node
+    // rebuilds cluster-wide presence by reading the topic from the beginning
+    @Bean
+    public NewTopic presenceTopic() {
+        return TopicBuilder.name(presenceTopic)
+                .partitions(3)
+                .replicas(replicas)
+                .compact()
+                .build();
+    }
+
+    // Typing events are worthless after a few seconds - keep the log tiny
+    @Bean
+    public NewTopic typingTopic() {
+        return TopicBuilder.name(typingTopic)
+                .partitions(3)
+                .replicas(replicas)
+                .config(TopicConfig.RETENTION_MS_CONFIG, "60000")
+                .build();
+    }
+}
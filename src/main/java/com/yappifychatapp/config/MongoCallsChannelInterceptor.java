@@ -0,0 +1,70 @@
+package com.yappifychatapp.config;
+
+import com.yappifychatapp.services.MongoCallMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageMappingInfo;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+
+// STOMP counterpart of MongoCallsFilter: Mongo commands of one @MessageMapping call, tagged with
+// the mapping's /app pattern. Raw destinations are client input, so anything that is not a SEND
+// matching a mapping is charged to "STOMP UNMAPPED" and the tag space stays fixed. Only the
+// annotation handler is measured - the broker handlers that see the same frame never touch Mongo.
+@RequiredArgsConstructor
+public class MongoCallsChannelInterceptor implements ExecutorChannelInterceptor {
+
+    private static final String UNMAPPED = "UNMAPPED";
+
+    private final MongoCallMetrics mongoCallMetrics;
+    private final ThreadLocal<MongoCallMetrics.Scope> scope = new ThreadLocal<>();
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (handler instanceof SimpAnnotationMethodMessageHandler) {
+            scope.set(mongoCallMetrics.open());
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (handler instanceof SimpAnnotationMethodMessageHandler annotationHandler) {
+            mongoCallMetrics.close(scope.get(), "STOMP " + mappedPattern(message, annotationHandler));
+            scope.remove();
+        }
+    }
+
+    // The @MessageMapping pattern the destination resolves to, with its prefix, e.g. /app/chat.send
+    private static String mappedPattern(Message<?> message, SimpAnnotationMethodMessageHandler handler) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return UNMAPPED;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return UNMAPPED;
+        }
+        for (String prefix : handler.getDestinationPrefixes()) {
+            if (!destination.startsWith(prefix)) {
+                continue;
+            }
+            // Prefixes are kept with a trailing slash; lookup paths start with one, as in the handler
+            String lookup = destination.substring(prefix.endsWith("/") ? prefix.length() - 1 : prefix.length());
+            for (SimpMessageMappingInfo mapping : handler.getHandlerMethods().keySet()) {
+                if (mapping.getMessageTypeMessageCondition().getMessageType() != SimpMessageType.MESSAGE) {
+                    continue;
+                }
+                for (String pattern : mapping.getDestinationConditions().getPatterns()) {
+                    if (handler.getPathMatcher().match(pattern, lookup)) {
+                        return destination.substring(0, destination.length() - lookup.length()) + pattern;
+                    }
+                }
+            }
+        }
+        return UNMAPPED;
+    }
+}
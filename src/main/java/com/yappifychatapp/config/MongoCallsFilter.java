@@ -0,0 +1,34 @@
+package com.yappifychatapp.config;
+
+import com.yappifychatapp.services.MongoCallMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+// Charges every Mongo command of an HTTP request - auth lookups included - to its endpoint
+// (method plus matched route pattern, so path variables do not blow up the tag space)
+@RequiredArgsConstructor
+public class MongoCallsFilter extends OncePerRequestFilter {
+
+    private final MongoCallMetrics mongoCallMetrics;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        MongoCallMetrics.Scope scope = mongoCallMetrics.open();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            mongoCallMetrics.close(scope, request.getMethod() + " " + (pattern != null ? pattern : "UNMAPPED"));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.yappifychatapp.config;
+
+import com.mongodb.DBRef;
+import com.yappifychatapp.services.MongoCallMetrics;
+import org.bson.Document;
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+
+// Mongo round-trip accounting (see MongoCallMetrics). Per repository method latency comes from
+// Spring Data's own spring.data.repository.invocations timers, histograms enabled in properties.
+@Configuration
+public class MongoInstrumentationConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandListenerCustomizer(MongoCallMetrics mongoCallMetrics) {
+        return builder -> builder.addCommandListener(mongoCallMetrics);
+    }
+
+    // Same converter Boot would build, with a resolver that counts the documents @DBRef
+    // properties pull in - eager ones while mapping, lazy ones on first access
+    @Bean
+    public MappingMongoConverter mappingMongoConverter(MongoDatabaseFactory factory,
+                                                       MongoMappingContext context,
+                                                       MongoCustomConversions conversions,
+                                                       MongoCallMetrics mongoCallMetrics) {
+        MappingMongoConverter converter = new MappingMongoConverter(new CountingDbRefResolver(factory, mongoCallMetrics), context);
+        converter.setCustomConversions(conversions);
+        return converter;
+    }
+
+    private static final class CountingDbRefResolver extends DefaultDbRefResolver {
+
+        private final MongoCallMetrics mongoCallMetrics;
+
+        private CountingDbRefResolver(MongoDatabaseFactory factory, MongoCallMetrics mongoCallMetrics) {
+            super(factory);
+            this.mongoCallMetrics = mongoCallMetrics;
+        }
+
+        @Override
+        public Document fetch(DBRef dbRef) {
+            mongoCallMetrics.recordDbRefResolutions(1);
+            return super.fetch(dbRef);
+        }
+
+        @Override
+        public List<Document> bulkFetch(List<DBRef> refs) {
+            mongoCallMetrics.recordDbRefResolutions(refs.size());
+            return super.bulkFetch(refs);
+        }
+    }
+}
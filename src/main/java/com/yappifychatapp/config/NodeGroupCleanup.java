@@ -0,0 +1,90 @@
+package com.yappifychatapp.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.errors.GroupIdNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Deletes this node's own consumer groups (see ChatInstance.getNodeGroupIds) on a clean shutdown.
+// Without it every restart under a new instance id leaves an empty group and its offsets on the
+// broker. After a crash the groups stay until the broker expires their offsets
+// (offsets.retention.minutes, 7 days by default) or the same instance id starts again - it rejoins
+// them at the end of each partition (see NodeGroupRebalanceListener) and deletes them on shutdown.
+@Component
+@Profile("!local-bus")
+@Slf4j
+public class NodeGroupCleanup implements SmartLifecycle {
+
+    private static final long ADMIN_TIMEOUT_SECONDS = 5;
+
+    private final KafkaAdmin kafkaAdmin;
+    private final ChatInstance chatInstance;
+    private final boolean clusterEnabled;
+    private volatile boolean running;
+
+    public NodeGroupCleanup(KafkaAdmin kafkaAdmin,
+                            ChatInstance chatInstance,
+                            @Value("${chat.cluster.enabled:true}") boolean clusterEnabled) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.chatInstance = chatInstance;
+        this.clusterEnabled = clusterEnabled;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (!clusterEnabled) {
+            return;
+        }
+        List<String> groupIds = chatInstance.getNodeGroupIds();
+        try (AdminClient adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
+            Map<String, KafkaFuture<Void>> results = adminClient.deleteConsumerGroups(groupIds).deletedGroups();
+            for (Map.Entry<String, KafkaFuture<Void>> result : results.entrySet()) {
+                delete(result.getKey(), result.getValue());
+            }
+        }
+    }
+
+    private void delete(String groupId, KafkaFuture<Void> result) {
+        try {
+            result.get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            log.info("Deleted consumer group {} of node {}", groupId, chatInstance.getInstanceId());
+        } catch (ExecutionException e) {
+            // A listener that never committed leaves no group behind
+            if (!(e.getCause() instanceof GroupIdNotFoundException)) {
+                log.warn("Could not delete consumer group {}: {}", groupId, e.getCause().getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            log.warn("Timed out deleting consumer group {}", groupId);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stops after the listener containers, whose consumers have to leave the groups first
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
@@ -0,0 +1,53 @@
+package com.yappifychatapp.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Rebalance listener of the per-node groups (ChatInstance.getNodeGroupIds). Their ids are stable,
+// so a node restarted after a crash rejoins groups that still hold committed offsets; delivering
+// from there would push the whole backlog to clients that have already re-fetched their history.
+// The first time this process is assigned a partition it seeks to the end instead. Later
+// assignments - rebalances between this node's own consumers - keep the committed position, so
+// nothing is skipped while the node runs. Shared groups are left alone.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NodeGroupRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final KafkaRebalanceMetrics rebalanceMetrics;
+    private final ChatInstance chatInstance;
+
+    // group/partition pairs already positioned by this process
+    private final Set<String> positioned = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        rebalanceMetrics.onPartitionsAssigned(consumer, partitions);
+
+        String group = consumer.groupMetadata().groupId();
+        if (!chatInstance.getNodeGroupIds().contains(group)) {
+            return;
+        }
+        List<TopicPartition> first = partitions.stream()
+                .filter(partition -> positioned.add(group + "/" + partition))
+                .toList();
+        if (!first.isEmpty()) {
+            consumer.seekToEnd(first);
+            log.debug("Group {} starts at the end of {}", group, first);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        rebalanceMetrics.onPartitionsLost(consumer, partitions);
+    }
+}
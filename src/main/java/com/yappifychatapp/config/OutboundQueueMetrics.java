@@ -0,0 +1,54 @@
+package com.yappifychatapp.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Drop/disconnect counters and queue high-water marks for per-session outbound queues
+public class OutboundQueueMetrics {
+
+    private final Map<BoundedOutboundSession.OverflowPolicy, Counter> dropped =
+            new EnumMap<>(BoundedOutboundSession.OverflowPolicy.class);
+    private final Counter slowDisconnects;
+    private final DistributionSummary sessionHighWaterMark;
+    private final AtomicInteger maxHighWaterMark = new AtomicInteger();
+
+    public OutboundQueueMetrics(MeterRegistry meterRegistry) {
+        for (BoundedOutboundSession.OverflowPolicy policy : BoundedOutboundSession.OverflowPolicy.values()) {
+            dropped.put(policy, Counter.builder("chat.websocket.session.dropped")
+                    .tag("policy", policy.name().toLowerCase())
+                    .description("Outbound frames discarded because a session queue overflowed")
+                    .register(meterRegistry));
+        }
+        this.slowDisconnects = Counter.builder("chat.websocket.session.slow-disconnects")
+                .description("Sessions closed for overflowing their queue or exceeding the send time limit")
+                .register(meterRegistry);
+        this.sessionHighWaterMark = DistributionSummary.builder("chat.websocket.session.queue.high-water")
+                .description("Deepest outbound queue reached by a session during its lifetime")
+                .register(meterRegistry);
+        Gauge.builder("chat.websocket.session.queue.high-water.max", maxHighWaterMark, AtomicInteger::get)
+                .description("Deepest outbound queue reached by any session since startup")
+                .register(meterRegistry);
+    }
+
+    public void recordDropped(BoundedOutboundSession.OverflowPolicy policy, int count) {
+        dropped.get(policy).increment(count);
+    }
+
+    public void recordSlowDisconnect() {
+        slowDisconnects.increment();
+    }
+
+    public void recordHighWaterMark(int depth) {
+        maxHighWaterMark.accumulateAndGet(depth, Math::max);
+    }
+
+    public void recordSessionClosed(int highWaterMark) {
+        sessionHighWaterMark.record(highWaterMark);
+    }
+}
@@ -0,0 +1,73 @@
+package com.yappifychatapp.config;
+
+import com.yappifychatapp.services.RateLimiter;
+import com.yappifychatapp.services.RateLimiter.EndpointClass;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+import java.security.Principal;
+import java.util.Map;
+
+// Limits STOMP SEND frames to /app destinations. Runs on the transport thread before the frame is
+// queued for the inbound executor, so a flooding client is cut off before it takes any handler time.
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitChannelInterceptor implements ChannelInterceptor {
+
+    public static final String ERRORS_QUEUE = "/queue/errors";
+
+    private final RateLimiter rateLimiter;
+    // Resolved lazily - the template is built by the same broker configuration this interceptor is part of
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null || !destination.startsWith("/app/")) {
+            return message;
+        }
+
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        EndpointClass endpointClass = destination.equals("/app/chat.send")
+                ? EndpointClass.MESSAGE_SEND
+                : EndpointClass.DEFAULT;
+
+        if (rateLimiter.tryAcquire(callerKey(message, sessionId), endpointClass)) {
+            return message;
+        }
+
+        // Dropping the frame keeps the session open; the client is told so it can back off
+        log.debug("Rate limited STOMP frame to {} - SessionId: {}", destination, sessionId);
+        notifyRejected(sessionId, destination);
+        return null;
+    }
+
+    // The handshake user (see UserHandshakeHandler), never the id a client binds with chat.addUser -
+    // that one is whatever the client claims. Kept apart from RateLimitFilter's "user:" buckets.
+    private static String callerKey(Message<?> message, String sessionId) {
+        Principal user = SimpMessageHeaderAccessor.getUser(message.getHeaders());
+        return user != null ? "stomp-user:" + user.getName() : "stomp-session:" + sessionId;
+    }
+
+    private void notifyRejected(String sessionId, String destination) {
+        if (sessionId == null) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.getObject().convertAndSendToUser(sessionId, ERRORS_QUEUE,
+                Map.of("type", "RATE_LIMITED", "destination", destination), accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,72 @@
+package com.yappifychatapp.config;
+
+import com.yappifychatapp.services.RateLimiter;
+import com.yappifychatapp.services.RateLimiter.EndpointClass;
+import com.yappifychatapp.utils.JWTUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Runs ahead of JWTAuthenticationFilter so a rejected request costs a token check, not a user lookup.
+// Callers are keyed by the user id in their token, or by remote address when there is none.
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final JWTUtil jwtUtil;
+    private final RateLimiter rateLimiter;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        EndpointClass endpointClass = classify(request);
+        if (rateLimiter.tryAcquire(callerKey(request), endpointClass)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(rateLimiter.retryAfterSeconds(endpointClass)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"Too many requests\"}");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // SockJS transport requests are limited per STOMP frame instead (see RateLimitChannelInterceptor)
+        String path = request.getRequestURI();
+        return path.startsWith("/ws-chat") || path.startsWith("/actuator");
+    }
+
+    private static EndpointClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        if ("POST".equals(method) && path.equals("/api/message/")) {
+            return EndpointClass.MESSAGE_SEND;
+        }
+        if ("GET".equals(method) && (path.equals("/api/user") || path.equals("/api/user/"))) {
+            return EndpointClass.SEARCH;
+        }
+        return EndpointClass.DEFAULT;
+    }
+
+    private String callerKey(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            try {
+                return "user:" + jwtUtil.extractUserId(authHeader.substring(7));
+            } catch (Exception e) {
+                // Invalid token - fall through and limit by address
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -1,8 +1,11 @@
 package com.yappifychatapp.config;
 
+import com.yappifychatapp.services.MongoCallMetrics;
+import com.yappifychatapp.services.RateLimiter;
 import com.yappifychatapp.services.UserService;
 import com.yappifychatapp.utils.JWTUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,6 +16,8 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.List;
+
 @Configuration
 @RequiredArgsConstructor
 @EnableMethodSecurity
@@ -20,6 +25,12 @@ public class SecurityConfig {
 
     private final JWTUtil jwtUtil;
     private final UserService userService;
+    private final RateLimiter rateLimiter;
+    private final MongoCallMetrics mongoCallMetrics;
+
+    // Users granted the admin role by JWTAuthenticationFilter - nobody when empty
+    @Value("${chat.admin.user-ids:}")
+    private List<String> adminUserIds;
 
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authConfig) throws Exception {
@@ -43,14 +54,23 @@ public class SecurityConfig {
                         .requestMatchers("/swagger-ui/**").permitAll()
                         .requestMatchers("/v3/api-docs/**").permitAll()
                         .requestMatchers("/swagger-ui.html").permitAll()
-                        // Actuator endpoints
+                        // Administration - the one place the admin rule lives
+                        .requestMatchers("/api/admin/**").hasRole(JWTAuthenticationFilter.ADMIN_ROLE)
+                        // Actuator endpoints - chatstats lists chat ids and their rates, so admins only
+                        .requestMatchers("/actuator/chatstats/**").hasRole(JWTAuthenticationFilter.ADMIN_ROLE)
                         .requestMatchers("/actuator/**").permitAll()
                         .anyRequest().authenticated()
                 )
 
                 // Add JWT filter before UsernamePasswordAuthenticationFilter
-                .addFilterBefore(new JWTAuthenticationFilter(jwtUtil, userService),
-                        UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(new JWTAuthenticationFilter(jwtUtil, userService, adminUserIds),
+                        UsernamePasswordAuthenticationFilter.class)
+
+                // Per-caller rate limit, checked before the JWT filter loads the user
+                .addFilterBefore(new RateLimitFilter(jwtUtil, rateLimiter), JWTAuthenticationFilter.class)
+
+                // Outermost, so the JWT filter's user lookup counts toward the request's Mongo calls
+                .addFilterBefore(new MongoCallsFilter(mongoCallMetrics), RateLimitFilter.class);
 
         return http.build();
     }
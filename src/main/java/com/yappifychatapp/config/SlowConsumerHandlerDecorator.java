@@ -0,0 +1,57 @@
+package com.yappifychatapp.config;
+
+import com.yappifychatapp.services.WebSocketService;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// Wraps every new WebSocket session in a BoundedOutboundSession before the STOMP handler sees it
+public class SlowConsumerHandlerDecorator extends WebSocketHandlerDecorator {
+
+    private final int queueCapacity;
+    private final long sendTimeLimitMillis;
+    private final BoundedOutboundSession.OverflowPolicy overflowPolicy;
+    private final OutboundQueueMetrics metrics;
+    private final WebSocketService webSocketService;
+
+    // One virtual thread per draining session, so a blocked socket never holds a pooled thread
+    private final Executor sendExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ws-send-", 0).factory());
+
+    private final ConcurrentHashMap<String, BoundedOutboundSession> sessions = new ConcurrentHashMap<>();
+
+    public SlowConsumerHandlerDecorator(WebSocketHandler delegate, int queueCapacity, long sendTimeLimitMillis,
+                                        BoundedOutboundSession.OverflowPolicy overflowPolicy,
+                                        OutboundQueueMetrics metrics, WebSocketService webSocketService) {
+        super(delegate);
+        this.queueCapacity = queueCapacity;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.overflowPolicy = overflowPolicy;
+        this.metrics = metrics;
+        this.webSocketService = webSocketService;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        BoundedOutboundSession bounded = new BoundedOutboundSession(
+                session, queueCapacity, sendTimeLimitMillis, overflowPolicy, sendExecutor, metrics);
+        sessions.put(session.getId(), bounded);
+        webSocketService.sessionOpened(bounded);
+        super.afterConnectionEstablished(bounded);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        webSocketService.sessionClosed(session.getId());
+        BoundedOutboundSession bounded = sessions.remove(session.getId());
+        if (bounded != null) {
+            metrics.recordSessionClosed(bounded.getHighWaterMark());
+        }
+        super.afterConnectionClosed(session, closeStatus);
+    }
+}
@@ -0,0 +1,61 @@
+package com.yappifychatapp.config;
+
+import com.yappifychatapp.models.User;
+import com.yappifychatapp.services.UserService;
+import com.yappifychatapp.utils.JWTUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.security.Principal;
+import java.util.Map;
+
+// Gives each STOMP session the user of its handshake as principal, named by user id, so
+// /user destinations and per-user limits follow the token rather than what the client claims.
+// The token comes from the Authorization header (already checked by JWTAuthenticationFilter) or,
+// for browsers, which cannot set headers on a WebSocket, from the access_token query parameter.
+// Handshakes without a valid token get no principal.
+@RequiredArgsConstructor
+@Slf4j
+public class UserHandshakeHandler extends DefaultHandshakeHandler {
+
+    public static final String TOKEN_PARAMETER = "access_token";
+
+    private final JWTUtil jwtUtil;
+    private final UserService userService;
+
+    @Override
+    protected Principal determineUser(ServerHttpRequest request, WebSocketHandler wsHandler,
+                                      Map<String, Object> attributes) {
+        if (request.getPrincipal() instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof User user) {
+            return new UserPrincipal(user.getId());
+        }
+
+        String token = UriComponentsBuilder.fromUri(request.getURI()).build()
+                .getQueryParams().getFirst(TOKEN_PARAMETER);
+        if (token == null || !jwtUtil.validateToken(token)) {
+            return null;
+        }
+        try {
+            User user = userService.getUserById(jwtUtil.extractUserId(token));
+            return user.isDeleted() ? null : new UserPrincipal(user.getId());
+        } catch (RuntimeException e) {
+            log.debug("Handshake token of unknown user: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Principal of a STOMP session - its name is the user id
+    public record UserPrincipal(String userId) implements Principal {
+
+        @Override
+        public String getName() {
+            return userId;
+        }
+    }
+}
@@ -1,29 +1,162 @@
 package com.yappifychatapp.config;
 
+import com.yappifychatapp.services.MongoCallMetrics;
+import com.yappifychatapp.services.RateLimiter;
+import com.yappifychatapp.services.UserService;
+import com.yappifychatapp.services.WebSocketService;
+import com.yappifychatapp.utils.JWTUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.*;
 
+import java.util.concurrent.ThreadPoolExecutor;
+
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final MeterRegistry meterRegistry;
+    private final WebSocketService webSocketService;
+    private final RateLimiter rateLimiter;
+    private final MongoCallMetrics mongoCallMetrics;
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+    private final JWTUtil jwtUtil;
+    private final UserService userService;
+
+    // Inbound handlers (e.g. /app/chat.send) block on Mongo - virtual threads keep one slow
+    // call from holding a scarce pooled thread that other connections are waiting for
+    @Value("${chat.websocket.inbound.virtual-threads:true}")
+    private boolean inboundVirtualThreads;
+
+    // Only used when virtual threads are disabled
+    @Value("${chat.websocket.inbound.pool-size:16}")
+    private int inboundPoolSize;
+
+    @Value("${chat.websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${chat.websocket.outbound.pool-size:16}")
+    private int outboundPoolSize;
+
+    @Value("${chat.websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    // STOMP heart-beats let the broker notice dead connections, which in turn drives presence
+    @Value("${chat.websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    @Value("${spring.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    // Per-session outbound queue - bounded in frames rather than bytes
+    @Value("${chat.websocket.session.queue-capacity:256}")
+    private int sessionQueueCapacity;
+
+    @Value("${chat.websocket.session.overflow-policy:RESYNC}")
+    private BoundedOutboundSession.OverflowPolicy sessionOverflowPolicy;
+
+    @Value("${chat.websocket.session.send-time-limit-ms:5000}")
+    private long sessionSendTimeLimit;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws-chat")
+                .setHandshakeHandler(new UserHandshakeHandler(jwtUtil, userService))
                 .setAllowedOriginPatterns("*")
                 .withSockJS(); // fallback for browsers without WebSocket
+
+        // Frames from one session are handled in order even though the inbound executor is concurrent
+        registry.setPreserveReceiveOrder(true);
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         // Enable a simple in-memory broker for /topic and /queue
-        registry.enableSimpleBroker("/topic", "/queue");
+        ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+        heartbeatScheduler.setPoolSize(1);
+        heartbeatScheduler.setThreadNamePrefix("stomp-heartbeat-");
+        heartbeatScheduler.setDaemon(true);
+        heartbeatScheduler.initialize();
+
+        registry.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[]{heartbeatMs, heartbeatMs})
+                .setTaskScheduler(heartbeatScheduler);
 
         // Messages sent to /app will be routed to @MessageMapping methods
         registry.setApplicationDestinationPrefixes("/app");
 
         // For user-specific messages
         registry.setUserDestinationPrefix("/user");
+
+        // Keep per-session delivery order now that the outbound pool has many threads
+        registry.setPreservePublishOrder(true);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setMessageSizeLimit(messageSizeLimit);
+
+        OutboundQueueMetrics metrics = new OutboundQueueMetrics(meterRegistry);
+        registration.addDecoratorFactory(handler -> new SlowConsumerHandlerDecorator(
+                handler, sessionQueueCapacity, sessionSendTimeLimit, sessionOverflowPolicy, metrics, webSocketService));
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        InstrumentedTaskDecorator decorator = new InstrumentedTaskDecorator("inbound", meterRegistry);
+        registration.interceptors(new RateLimitChannelInterceptor(rateLimiter, messagingTemplate),
+                new MongoCallsChannelInterceptor(mongoCallMetrics));
+
+        if (inboundVirtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ws-inbound-");
+            executor.setVirtualThreads(true);
+            executor.setTaskDecorator(decorator);
+            registration.executor(executor);
+        } else {
+            registration.executor(boundedPool("ws-inbound-", "inbound", inboundPoolSize, inboundQueueCapacity, decorator));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        InstrumentedTaskDecorator decorator = new InstrumentedTaskDecorator("outbound", meterRegistry);
+        registration.executor(boundedPool("ws-outbound-", "outbound", outboundPoolSize, outboundQueueCapacity, decorator));
+    }
+
+    // Fixed-size pool with a bounded queue. When the queue is full the submitting thread runs
+    // the task itself, which pushes back on the producer instead of dropping frames.
+    private ThreadPoolTaskExecutor boundedPool(String threadNamePrefix, String channel, int poolSize,
+                                               int queueCapacity, InstrumentedTaskDecorator decorator) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(decorator);
+
+        Gauge.builder("chat.websocket.channel.queue.size", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .tag("channel", channel)
+                .description("Tasks waiting in the STOMP channel executor queue")
+                .register(meterRegistry);
+        Gauge.builder("chat.websocket.channel.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("channel", channel)
+                .description("Busy threads in the STOMP channel executor")
+                .register(meterRegistry);
+
+        // Initialized by the broker configuration, which exposes it as a bean
+        return executor;
     }
-}
\ No newline at end of file
+}
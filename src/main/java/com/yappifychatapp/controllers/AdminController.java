@@ -0,0 +1,46 @@
+package com.yappifychatapp.controllers;
+
+import com.yappifychatapp.services.DeadLetterService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+// Admins only - enforced by SecurityConfig for all of /api/admin
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@Tag(name = "Administration", description = "Operational endpoints for administrators")
+@SecurityRequirement(name = "Bearer Authentication")
+public class AdminController {
+
+    private final DeadLetterService deadLetterService;
+
+    @PostMapping("/dead-letters/replay")
+    @Operation(
+            summary = "Replay dead letters",
+            description = "Send chat events from the dead-letter topic back through the notification retry tiers"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Dead letters replayed"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit"),
+            @ApiResponse(responseCode = "403", description = "Caller is not an administrator")
+    })
+    public ResponseEntity<Map<String, Object>> replayDeadLetters(
+            @Parameter(description = "Maximum number of dead letters to replay")
+            @RequestParam(defaultValue = "100") int max) {
+        if (max <= 0 || max > 10000) {
+            throw new IllegalArgumentException("max must be between 1 and 10000");
+        }
+
+        int replayed = deadLetterService.replay(max);
+        return ResponseEntity.ok(Map.of("replayed", replayed));
+    }
+}
@@ -1,8 +1,17 @@
 package com.yappifychatapp.controllers;
 
 import com.yappifychatapp.dto.ChatMessageDTO;
+import com.yappifychatapp.dto.PresenceWatchRequest;
+import com.yappifychatapp.dto.ResumeRequest;
+import com.yappifychatapp.dto.TypingEventDTO;
 import com.yappifychatapp.models.Message;
+import com.yappifychatapp.services.HotPathLog;
 import com.yappifychatapp.services.MessageService;
+import com.yappifychatapp.services.MessageTracer;
+import com.yappifychatapp.services.PresenceService;
+import com.yappifychatapp.services.ResumeService;
+import com.yappifychatapp.services.TypingService;
+import com.yappifychatapp.services.WebSocketService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -10,40 +19,106 @@ import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
+
 @Controller
 @RequiredArgsConstructor
 @Slf4j
 public class ChatWebSocketController {
 
     private final MessageService messageService;
+    private final WebSocketService webSocketService;
+    private final PresenceService presenceService;
+    private final TypingService typingService;
+    private final ResumeService resumeService;
+    private final MessageTracer messageTracer;
+    private final HotPathLog hotPathLog;
 
     @MessageMapping("/chat.send")
     public void sendMessage(@Payload ChatMessageDTO chatMessage,
                             SimpMessageHeaderAccessor headerAccessor) {
-        log.info("Received WebSocket message - ChatId: {}, SenderId: {}",
-                chatMessage.getChatId(), chatMessage.getSenderId());
-
+        messageTracer.begin();
         try {
-            // Save message to DB and publish to Kafka
-            // Kafka consumer will handle broadcasting to WebSocket subscribers
+            // Save message to DB and publish it on the chat event bus
+            // The bus consumer handles broadcasting to WebSocket subscribers
             Message message = messageService.sendMessage(
                     chatMessage.getSenderId(),
                     chatMessage.getChatId(),
                     chatMessage.getContent()
             );
 
-            log.info("Message processed successfully - MessageId: {}", message.getId());
+            if (hotPathLog.allow("ws.send")) {
+                log.atInfo().setMessage("WebSocket message processed")
+                        .addKeyValue("messageId", message.getId())
+                        .addKeyValue("chatId", chatMessage.getChatId())
+                        .addKeyValue("senderId", chatMessage.getSenderId())
+                        .log();
+            }
         } catch (Exception e) {
             log.error("Error processing message: {}", e.getMessage());
             // You can send error back to the client if needed
+        } finally {
+            messageTracer.end();
+        }
+    }
+
+    // Ephemeral - not persisted and not published to the chat message topic
+    @MessageMapping("/chat.typing")
+    public void typing(@Payload TypingEventDTO typingEvent,
+                       SimpMessageHeaderAccessor headerAccessor) {
+        Object boundUserId = headerAccessor.getSessionAttributes().get("userId");
+        String userId = boundUserId != null ? boundUserId.toString() : typingEvent.getUserId();
+
+        if (userId == null || typingEvent.getChatId() == null) {
+            return;
         }
+
+        typingService.typing(userId, typingEvent.getChatId(), typingEvent.isTyping());
     }
 
     @MessageMapping("/chat.addUser")
     public void addUser(@Payload ChatMessageDTO chatMessage,
                         SimpMessageHeaderAccessor headerAccessor) {
-        // Add username in web socket session
-        headerAccessor.getSessionAttributes().put("userId", chatMessage.getSenderId());
-        log.info("User connected - UserId: {}", chatMessage.getSenderId());
+        // Add username in web socket session - the handshake user when there is one, so a client
+        // cannot appear online (or watch presence) as somebody else
+        Principal principal = headerAccessor.getUser();
+        String userId = principal != null ? principal.getName() : chatMessage.getSenderId();
+        headerAccessor.getSessionAttributes().put("userId", userId);
+        webSocketService.registerSession(userId, headerAccessor.getSessionId());
+        presenceService.connected(userId, headerAccessor.getSessionId());
+        log.info("User connected - UserId: {}", userId);
+    }
+
+    @MessageMapping("/presence.watch")
+    public void watchPresence(@Payload PresenceWatchRequest request,
+                              SimpMessageHeaderAccessor headerAccessor) {
+        // Diffs go to the watcher's /user/queue/presence, so the watcher is the handshake user -
+        // neither chat.addUser nor the payload can name someone else
+        Principal principal = headerAccessor.getUser();
+        if (principal == null || request.getUserIds() == null) {
+            log.warn("Ignoring presence watch without authenticated user or targets");
+            return;
+        }
+
+        presenceService.watch(principal.getName(), request.getUserIds());
+    }
+
+    // Replay what the client missed since its last received message per chat
+    @MessageMapping("/chat.resume")
+    public void resume(@Payload ResumeRequest request,
+                       SimpMessageHeaderAccessor headerAccessor) {
+        Object boundUserId = headerAccessor.getSessionAttributes().get("userId");
+        String userId = boundUserId != null ? boundUserId.toString() : request.getUserId();
+
+        if (userId == null || request.getPositions() == null) {
+            log.warn("Ignoring resume without user id or positions");
+            return;
+        }
+
+        try {
+            resumeService.resume(userId, headerAccessor.getSessionId(), request.getPositions());
+        } catch (Exception e) {
+            log.error("Error resuming session {}: {}", headerAccessor.getSessionId(), e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
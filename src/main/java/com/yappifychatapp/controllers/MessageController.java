@@ -2,6 +2,7 @@ package com.yappifychatapp.controllers;
 
 import com.yappifychatapp.models.Message;
 import com.yappifychatapp.services.MessageService;
+import com.yappifychatapp.services.MessageTracer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -28,6 +29,7 @@ import java.util.Map;
 public class MessageController {
 
     private final MessageService messageService;
+    private final MessageTracer messageTracer;
 
     @GetMapping("/{chatId}")
     @Operation(summary = "Get all messages with pagination",
@@ -66,8 +68,13 @@ public class MessageController {
             throw new IllegalArgumentException("Message content cannot be empty");
         }
 
-        Message message = messageService.sendMessage(senderId, chatId, content);
-        return ResponseEntity.ok(message);
+        messageTracer.begin();
+        try {
+            Message message = messageService.sendMessage(senderId, chatId, content);
+            return ResponseEntity.ok(message);
+        } finally {
+            messageTracer.end();
+        }
     }
 
     @PutMapping("/{messageId}")
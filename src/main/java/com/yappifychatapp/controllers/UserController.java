@@ -3,6 +3,7 @@ package com.yappifychatapp.controllers;
 import com.yappifychatapp.dto.AuthResponse;
 import com.yappifychatapp.dto.LoginRequest;
 import com.yappifychatapp.dto.RegisterRequest;
+import com.yappifychatapp.models.AccountDeletionJob;
 import com.yappifychatapp.models.User;
 import com.yappifychatapp.services.UserService;
 import com.yappifychatapp.utils.JWTUtil;
@@ -13,6 +14,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -195,10 +197,10 @@ public class UserController {
     @DeleteMapping("/account")
     @Operation(
             summary = "Delete account",
-            description = "Permanently delete user account and all associated data"
+            description = "Mark the account deleted and schedule removal of all associated data in the background"
     )
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Account deleted successfully"),
+            @ApiResponse(responseCode = "202", description = "Account deletion scheduled"),
             @ApiResponse(responseCode = "400", description = "Invalid password"),
             @ApiResponse(responseCode = "404", description = "User not found")
     })
@@ -213,7 +215,26 @@ public class UserController {
             throw new IllegalArgumentException("Password confirmation is required");
         }
 
-        userService.deleteAccount(userId, password);
-        return ResponseEntity.ok(Map.of("message", "Account deleted successfully"));
+        AccountDeletionJob job = userService.deleteAccount(userId, password);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "message", "Account deletion scheduled",
+                "jobId", job.getId()
+        ));
+    }
+
+    @GetMapping("/account/deletion")
+    @Operation(
+            summary = "Get account deletion progress",
+            description = "Get status and progress counters of the background account deletion job"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Deletion job found"),
+            @ApiResponse(responseCode = "400", description = "No account deletion found for user")
+    })
+    @SecurityRequirement(name = "User ID Header")
+    public ResponseEntity<AccountDeletionJob> getDeletionStatus(
+            @Parameter(description = "User ID") @RequestHeader("userId") String userId) {
+        AccountDeletionJob job = userService.getDeletionStatus(userId);
+        return ResponseEntity.ok(job);
     }
 }
\ No newline at end of file
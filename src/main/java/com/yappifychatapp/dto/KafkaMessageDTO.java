@@ -1,5 +1,6 @@
 package com.yappifychatapp.dto;
 
+import com.yappifychatapp.models.Message;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,4 +18,17 @@ public class KafkaMessageDTO {
     private String content;
     private LocalDateTime timestamp;
     private boolean isGroupChat;
+
+    // Event for a stored message; chat and sender must be loaded
+    public static KafkaMessageDTO from(Message message) {
+        return new KafkaMessageDTO(
+                message.getId(),
+                message.getChat().getId(),
+                message.getSender().getId(),
+                message.getSender().getName(),
+                message.getContent(),
+                message.getCreatedAt() != null ? message.getCreatedAt() : LocalDateTime.now(),
+                message.getChat().getIsGroupChat()
+        );
+    }
 }
\ No newline at end of file
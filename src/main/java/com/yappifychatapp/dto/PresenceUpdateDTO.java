@@ -0,0 +1,17 @@
+package com.yappifychatapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One batched presence frame: every change a watcher is interested in since the last tick
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceUpdateDTO {
+    private List<String> online = new ArrayList<>();
+    private List<String> offline = new ArrayList<>();
+}
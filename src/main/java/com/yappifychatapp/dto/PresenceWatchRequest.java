@@ -0,0 +1,11 @@
+package com.yappifychatapp.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class PresenceWatchRequest {
+    private String userId;
+    private List<String> userIds; // users whose presence the client wants to follow
+}
@@ -0,0 +1,11 @@
+package com.yappifychatapp.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class ResumeRequest {
+    private String userId;
+    private Map<String, String> positions; // chatId -> id of the last message the client received
+}
@@ -0,0 +1,21 @@
+package com.yappifychatapp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class ResumeResultDTO {
+    private String type = "RESUMED";
+    private String chatId;
+    private int replayed;
+    private String source; // MEMORY, STORE or NONE
+    private boolean complete; // false when the gap was too large - re-fetch the chat over REST
+
+    public ResumeResultDTO(String chatId, int replayed, String source, boolean complete) {
+        this.chatId = chatId;
+        this.replayed = replayed;
+        this.source = source;
+        this.complete = complete;
+    }
+}
@@ -0,0 +1,14 @@
+package com.yappifychatapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TypingEventDTO {
+    private String chatId;
+    private String userId;
+    private boolean typing; // false when the user stopped typing
+}
@@ -0,0 +1,72 @@
+package com.yappifychatapp.models;
+
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "account_deletion_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountDeletionJob {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String userId;
+
+    private Status status = Status.PENDING;
+
+    // Current cleanup step - persisted so a restarted node resumes where the last one stopped
+    private Phase phase = Phase.DIRECT_CHATS;
+
+    // Progress counters
+    private long chatsDeleted;
+    private long groupsLeft;
+    private long messagesDeleted;
+    private long readReceiptsCleared;
+
+    private String lastError;
+
+    // Last _id handled by a paged phase; cleared when the phase moves on
+    private String cursor;
+
+    // Node working on the job and until when - other nodes skip it while the lease is live
+    private String leaseOwner;
+    private LocalDateTime leaseUntil;
+
+    // Bumped by every claim, so a node whose lease ran out cannot overwrite the new owner's progress
+    @Version
+    private Long version;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        COMPLETED
+    }
+
+    public enum Phase {
+        DIRECT_CHATS,
+        SOLE_MEMBER_GROUPS,
+        GROUP_ADMIN,
+        GROUP_MEMBERSHIP,
+        READ_RECEIPTS,
+        USER_RECORD,
+        DONE
+    }
+}
@@ -28,6 +28,10 @@ public class User {
     @Field("pic")
     private String pic = "https://icon-library.com/images/anonymous-avatar-icon/anonymous-avatar-icon-25.jpg";
 
+    // Set as soon as account deletion is requested; the record itself is removed by the background job
+    @Field("deleted")
+    private boolean deleted = false;
+
     // Optional: password check (like matchPassword)
     public boolean matchPassword(String enteredPassword, org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder encoder) {
         return encoder.matches(enteredPassword, this.password);
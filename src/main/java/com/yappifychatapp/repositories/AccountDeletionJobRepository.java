@@ -0,0 +1,14 @@
+package com.yappifychatapp.repositories;
+
+import com.yappifychatapp.models.AccountDeletionJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AccountDeletionJobRepository extends MongoRepository<AccountDeletionJob, String> {
+
+    // Most recent deletion job for a user (used for progress reporting)
+    Optional<AccountDeletionJob> findFirstByUserIdOrderByCreatedAtDesc(String userId);
+}
@@ -0,0 +1,248 @@
+package com.yappifychatapp.services;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.yappifychatapp.config.ChatInstance;
+import com.yappifychatapp.models.AccountDeletionJob;
+import com.yappifychatapp.models.AccountDeletionJob.Phase;
+import com.yappifychatapp.models.AccountDeletionJob.Status;
+import com.yappifychatapp.models.User;
+import com.yappifychatapp.repositories.AccountDeletionJobRepository;
+import com.yappifychatapp.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AccountDeletionService {
+
+    private static final String USERS = "users";
+    private static final String CHATS = "chats";
+    private static final String MESSAGES = "messages";
+
+    private final AccountDeletionJobRepository jobRepository;
+    private final UserRepository userRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ChatInstance chatInstance;
+
+    // Max documents touched per step. A job takes one step per poll, so the poll interval is the
+    // pause between its pages and the two together cap the write rate per job.
+    @Value("${account-deletion.batch-size:200}")
+    private int batchSize;
+
+    // Jobs this node advances per poll
+    @Value("${account-deletion.jobs-per-poll:10}")
+    private int jobsPerPoll;
+
+    // How long a claimed job is left alone by other nodes - far longer than one step
+    @Value("${account-deletion.lease-ms:60000}")
+    private long leaseMs;
+
+    // Mark the user deleted right away and queue the cleanup for the background worker
+    public AccountDeletionJob scheduleDeletion(User user) {
+        user.setDeleted(true);
+        userRepository.save(user);
+
+        // Deleting twice should not start a second job
+        AccountDeletionJob existing = jobRepository.findFirstByUserIdOrderByCreatedAtDesc(user.getId())
+                .orElse(null);
+        if (existing != null && existing.getStatus() != Status.COMPLETED) {
+            return existing;
+        }
+
+        AccountDeletionJob job = new AccountDeletionJob();
+        job.setUserId(user.getId());
+        AccountDeletionJob savedJob = jobRepository.save(job);
+        log.info("Account deletion scheduled - UserId: {}, JobId: {}", user.getId(), savedJob.getId());
+        return savedJob;
+    }
+
+    // Progress of the latest deletion job for a user
+    public AccountDeletionJob getLatestJob(String userId) {
+        return jobRepository.findFirstByUserIdOrderByCreatedAtDesc(userId)
+                .orElseThrow(() -> new RuntimeException("No account deletion found for user"));
+    }
+
+    // Advance unfinished jobs by one step per tick. Each job is claimed first, so with several
+    // nodes only one works on it at a time. Every step is idempotent, so a job interrupted by a
+    // crash or redeploy resumes from its saved phase once its lease has run out.
+    @Scheduled(fixedDelayString = "${account-deletion.poll-interval-ms:1000}")
+    public void processPendingJobs() {
+        List<String> done = new ArrayList<>();
+        for (int i = 0; i < jobsPerPoll; i++) {
+            AccountDeletionJob job = claimNextJob(done);
+            if (job == null) {
+                return;
+            }
+            done.add(job.getId());
+
+            try {
+                job.setStatus(Status.RUNNING);
+                runStep(job);
+                job.setLastError(null);
+            } catch (Exception e) {
+                log.error("Account deletion step failed - JobId: {}, Phase: {}: {}",
+                        job.getId(), job.getPhase(), e.getMessage(), e);
+                job.setLastError(e.getMessage());
+            }
+
+            job.setLeaseOwner(null);
+            job.setLeaseUntil(null);
+            try {
+                jobRepository.save(job);
+            } catch (OptimisticLockingFailureException e) {
+                // The lease ran out mid-step and another node claimed the job; its state wins
+                log.warn("Lost the lease on account deletion job {} - step result discarded", job.getId());
+            }
+        }
+    }
+
+    // Takes the lease on one unfinished job nobody else holds, oldest lease first
+    private AccountDeletionJob claimNextJob(List<String> skip) {
+        LocalDateTime now = LocalDateTime.now();
+        Query claimable = query(where("status").in(Status.PENDING, Status.RUNNING)
+                .and("id").nin(skip)
+                .orOperator(where("leaseUntil").is(null), where("leaseUntil").lt(now)))
+                .with(Sort.by(Sort.Direction.ASC, "leaseUntil"));
+        Update claim = new Update()
+                .set("leaseOwner", chatInstance.getInstanceId())
+                .set("leaseUntil", now.plusNanos(leaseMs * 1_000_000L))
+                .inc("version", 1);
+        return mongoTemplate.findAndModify(claimable, claim,
+                FindAndModifyOptions.options().returnNew(true), AccountDeletionJob.class);
+    }
+
+    private void runStep(AccountDeletionJob job) {
+        ObjectId userId = new ObjectId(job.getUserId());
+        DBRef userRef = new DBRef(USERS, userId);
+
+        switch (job.getPhase()) {
+            case DIRECT_CHATS -> {
+                // One-to-one chats are removed entirely, together with their messages
+                List<Object> chatIds = findChatIds(query(where("isGroupChat").is(false)
+                        .and("users.$id").is(userId)));
+                if (chatIds.isEmpty()) {
+                    job.setPhase(Phase.SOLE_MEMBER_GROUPS);
+                    return;
+                }
+                deleteChats(job, chatIds);
+            }
+            case SOLE_MEMBER_GROUPS -> {
+                // Groups where the user is the last member would be left empty - delete them
+                List<Object> chatIds = findChatIds(query(where("isGroupChat").is(true)
+                        .and("users.$id").is(userId)
+                        .and("users").size(1)));
+                if (chatIds.isEmpty()) {
+                    job.setPhase(Phase.GROUP_ADMIN);
+                    return;
+                }
+                deleteChats(job, chatIds);
+            }
+            case GROUP_ADMIN -> {
+                // Hand admin rights to the first remaining member before the user is pulled out
+                Query adminQuery = query(where("isGroupChat").is(true).and("groupAdmin.$id").is(userId))
+                        .limit(batchSize);
+                adminQuery.fields().include("users");
+                List<Document> chats = mongoTemplate.find(adminQuery, Document.class, CHATS);
+                if (chats.isEmpty()) {
+                    job.setPhase(Phase.GROUP_MEMBERSHIP);
+                    return;
+                }
+                for (Document chat : chats) {
+                    DBRef newAdmin = chat.getList("users", DBRef.class).stream()
+                            .filter(ref -> !userId.equals(ref.getId()))
+                            .findFirst()
+                            .orElse(null);
+                    mongoTemplate.updateFirst(query(where("_id").is(chat.get("_id"))),
+                            new Update().set("groupAdmin", newAdmin), CHATS);
+                }
+                log.info("Transferred admin rights in {} groups - UserId: {}", chats.size(), job.getUserId());
+            }
+            case GROUP_MEMBERSHIP -> {
+                List<Object> chatIds = nextPage(job, CHATS, where("isGroupChat").is(true).and("users.$id").is(userId));
+                if (chatIds.isEmpty()) {
+                    job.setPhase(Phase.READ_RECEIPTS);
+                    return;
+                }
+                UpdateResult result = mongoTemplate.updateMulti(query(where("_id").in(chatIds)),
+                        new Update().pull("users", userRef), CHATS);
+                job.setGroupsLeft(job.getGroupsLeft() + result.getModifiedCount());
+            }
+            case READ_RECEIPTS -> {
+                List<Object> messageIds = nextPage(job, MESSAGES, where("readBy.$id").is(userId));
+                if (messageIds.isEmpty()) {
+                    job.setPhase(Phase.USER_RECORD);
+                    return;
+                }
+                UpdateResult result = mongoTemplate.updateMulti(query(where("_id").in(messageIds)),
+                        new Update().pull("readBy", userRef), MESSAGES);
+                job.setReadReceiptsCleared(job.getReadReceiptsCleared() + result.getModifiedCount());
+            }
+            case USER_RECORD -> {
+                userRepository.deleteById(job.getUserId());
+                job.setPhase(Phase.DONE);
+                job.setStatus(Status.COMPLETED);
+                job.setCompletedAt(LocalDateTime.now());
+                log.info("User account deleted successfully: {} - chats: {}, messages: {}, groups left: {}",
+                        job.getUserId(), job.getChatsDeleted(), job.getMessagesDeleted(), job.getGroupsLeft());
+            }
+            case DONE -> job.setStatus(Status.COMPLETED);
+        }
+    }
+
+    // Read only chat ids so no @DBRef on Chat gets resolved
+    private List<Object> findChatIds(Query chatQuery) {
+        chatQuery.limit(batchSize);
+        chatQuery.fields().include("_id");
+        return mongoTemplate.find(chatQuery, Document.class, CHATS).stream()
+                .map(doc -> doc.get("_id"))
+                .toList();
+    }
+
+    // Next batchSize ids matching the criteria, walking the collection by _id from the job's
+    // cursor. The cursor is cleared once the phase has nothing left.
+    private List<Object> nextPage(AccountDeletionJob job, String collection, Criteria criteria) {
+        if (job.getCursor() != null) {
+            criteria = criteria.and("_id").gt(new ObjectId(job.getCursor()));
+        }
+        Query page = query(criteria).with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+        page.fields().include("_id");
+        List<Object> ids = mongoTemplate.find(page, Document.class, collection).stream()
+                .map(doc -> doc.get("_id"))
+                .toList();
+        job.setCursor(ids.isEmpty() ? null : ids.get(ids.size() - 1).toString());
+        return ids;
+    }
+
+    private void deleteChats(AccountDeletionJob job, List<Object> chatIds) {
+        // Messages first - if we crash in between, the chat is still found on the next attempt
+        DeleteResult messages = mongoTemplate.remove(query(where("chat.$id").in(chatIds)), MESSAGES);
+        DeleteResult chats = mongoTemplate.remove(query(where("_id").in(chatIds)), CHATS);
+
+        job.setMessagesDeleted(job.getMessagesDeleted() + messages.getDeletedCount());
+        job.setChatsDeleted(job.getChatsDeleted() + chats.getDeletedCount());
+        log.info("Deleted {} chats and {} messages - JobId: {}",
+                chats.getDeletedCount(), messages.getDeletedCount(), job.getId());
+    }
+}
@@ -0,0 +1,69 @@
+package com.yappifychatapp.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+// Counters for the Kafka -> WebSocket broadcast path
+@Component
+public class BroadcastMetrics {
+
+    private final Counter delivered;
+    private final Counter skipped;
+    private final Counter failed;
+    private final DistributionSummary batchSize;
+    private final DistributionSummary messagesPerFrame;
+
+    public BroadcastMetrics(MeterRegistry meterRegistry) {
+        this.delivered = Counter.builder("chat.broadcast.records")
+                .tag("outcome", "delivered")
+                .description("Records broadcast to local subscribers")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("chat.broadcast.records")
+                .tag("outcome", "skipped")
+                .description("Records dropped because no local session subscribes to the chat")
+                .register(meterRegistry);
+
+        this.failed = Counter.builder("chat.broadcast.records")
+                .tag("outcome", "failed")
+                .description("Records that could not be broadcast to local subscribers")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("chat.broadcast.batch.size")
+                .description("Records per consumed poll in batch mode")
+                .register(meterRegistry);
+        this.messagesPerFrame = DistributionSummary.builder("chat.broadcast.frame.messages")
+                .description("Messages coalesced into one binary broker frame per chat")
+                .register(meterRegistry);
+
+        Gauge.builder("chat.broadcast.skipped.ratio", this, BroadcastMetrics::skippedRatio)
+                .description("Fraction of consumed records skipped by interest-based routing")
+                .register(meterRegistry);
+    }
+
+    public void recordDelivered(int records) {
+        delivered.increment(records);
+    }
+
+    public void recordSkipped() {
+        skipped.increment();
+    }
+
+    public void recordFailed(int records) {
+        failed.increment(records);
+    }
+
+    public void recordBatch(int records) {
+        batchSize.record(records);
+    }
+
+    public void recordFrame(int messages) {
+        messagesPerFrame.record(messages);
+    }
+
+    private double skippedRatio() {
+        double total = delivered.count() + skipped.count();
+        return total == 0 ? 0.0 : skipped.count() / total;
+    }
+}
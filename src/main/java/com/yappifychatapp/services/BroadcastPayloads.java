@@ -0,0 +1,54 @@
+package com.yappifychatapp.services;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+// Builds outbound broker messages around payloads that are already serialized.
+// The simple broker copies only headers per subscriber, so every session is
+// handed the same payload array - it must not be modified after this point.
+public final class BroadcastPayloads {
+
+    private BroadcastPayloads() {
+    }
+
+    public static Message<byte[]> json(byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    // Same payload addressed to a single session, for "/user/{sessionId}/..." destinations
+    public static Message<byte[]> json(byte[] payload, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setSessionId(sessionId);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    // A broadcast frame addressed to one subscription, as the simple broker would send it.
+    // Used when fan-out bypasses the broker; the payload array is still shared.
+    public static Message<byte[]> forSubscription(Message<byte[]> frame, String destination,
+                                                  String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(SimpMessageHeaderAccessor.getContentType(frame.getHeaders()));
+        accessor.setDestination(destination);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(frame.getPayload(), accessor.getMessageHeaders());
+    }
+
+    // octet-stream makes the STOMP handler emit a binary WebSocket frame instead of decoding
+    // the payload as text. SockJS has no binary frames, so SockJS clients must stay on JSON.
+    public static Message<byte[]> binary(byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,55 @@
+package com.yappifychatapp.services;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjDoubleConsumer;
+
+// Message rate of every chat seen on this node, over fixed windows. Writers bump a striped
+// counter in the current window; at the end of a window the counts are swapped out and kept as
+// the last complete snapshot, which is all readers ever see. Increments that race the swap land
+// in the retired window and are lost - the rates are for operators, not accounting.
+@Service
+public class ChatActivity {
+
+    private volatile ConcurrentHashMap<String, LongAdder> current = new ConcurrentHashMap<>();
+    private volatile Map<String, Long> lastWindow = Map.of();
+    private volatile long lastWindowMs;
+    private volatile long windowStartedAt = System.currentTimeMillis();
+
+    public void record(String chatId, int messages) {
+        current.computeIfAbsent(chatId, id -> new LongAdder()).add(messages);
+    }
+
+    @Scheduled(fixedRateString = "${chat.stats.rate-window-ms:10000}")
+    public void roll() {
+        long now = System.currentTimeMillis();
+        ConcurrentHashMap<String, LongAdder> finished = current;
+        current = new ConcurrentHashMap<>();
+
+        Map<String, Long> counts = new HashMap<>(finished.size() * 2);
+        finished.forEach((chatId, messages) -> counts.put(chatId, messages.sum()));
+        lastWindow = counts;
+        lastWindowMs = Math.max(1, now - windowStartedAt);
+        windowStartedAt = now;
+    }
+
+    // Messages per second of each chat active in the last complete window
+    public void forEachRate(ObjDoubleConsumer<String> consumer) {
+        Map<String, Long> counts = lastWindow;
+        double seconds = Math.max(1, lastWindowMs) / 1000.0;
+        counts.forEach((chatId, messages) -> consumer.accept(chatId, messages / seconds));
+    }
+
+    public int activeChats() {
+        return lastWindow.size();
+    }
+
+    public long windowMs() {
+        return lastWindowMs;
+    }
+}
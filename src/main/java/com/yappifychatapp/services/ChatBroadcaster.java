@@ -0,0 +1,66 @@
+package com.yappifychatapp.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// Delivers chat events to the WebSocket sessions on this node. Shared by every ChatEventBus
+// implementation - payloads are raw chat event values, binary or JSON (see ChatEventCodec.isBinary).
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChatBroadcaster {
+
+    private final ChatFanout chatFanout;
+    private final HotChatDetector hotChatDetector;
+    private final SubscriptionRegistry subscriptionRegistry;
+    private final BroadcastMetrics broadcastMetrics;
+    private final ReplayBuffer replayBuffer;
+    private final ChatEventPayloads chatEventPayloads;
+    private final ChatActivity chatActivity;
+
+    // Buffers an event for resume; true when some local session subscribes to its chat
+    public boolean accept(String chatId, String messageId, byte[] payload) {
+        chatActivity.record(chatId, 1);
+
+        // Buffered even without local subscribers - a client may resume this chat here later
+        if (messageId != null) {
+            replayBuffer.append(chatId, messageId, payload);
+        }
+
+        // Nobody on this node watches the chat - skip broker dispatch
+        if (!subscriptionRegistry.hasSubscribers(chatId)) {
+            broadcastMetrics.recordSkipped();
+            return false;
+        }
+        return true;
+    }
+
+    // Payloads are in publish order. /topic/chat/{id} gets one JSON object per frame whatever the
+    // listener mode; only the opt-in binary destination coalesces them, as a batch-flagged frame.
+    public void deliver(String chatId, List<byte[]> payloads) {
+        hotChatDetector.record(chatId, payloads.size());
+        try {
+            // Each frame is encoded once and shared by all subscribers of its wire format
+            if (subscriptionRegistry.hasJsonSubscribers(chatId)) {
+                for (byte[] payload : payloads) {
+                    chatFanout.send(chatId, SubscriptionRegistry.CHAT_TOPIC_PREFIX + chatId, false,
+                            BroadcastPayloads.json(chatEventPayloads.toJson(payload)));
+                }
+            }
+            if (subscriptionRegistry.hasBinarySubscribers(chatId)) {
+                chatFanout.send(chatId, SubscriptionRegistry.CHAT_BINARY_TOPIC_PREFIX + chatId, true,
+                        BroadcastPayloads.binary(chatEventPayloads.toBinary(payloads)));
+                broadcastMetrics.recordFrame(payloads.size());
+            }
+            broadcastMetrics.recordDelivered(payloads.size());
+        } catch (Exception e) {
+            // Not retried: a late broadcast is worthless, and on the Kafka bus the same record is
+            // retried and dead-lettered by the shared notification group if it is actually unreadable
+            broadcastMetrics.recordFailed(payloads.size());
+            log.error("Error broadcasting to WebSocket subscribers of chat {}: {}", chatId, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.yappifychatapp.services;
+
+import com.yappifychatapp.dto.KafkaMessageDTO;
+
+// Carries saved chat messages to the broadcast and notification consumers. The Kafka bus is the
+// default; the "local-bus" profile swaps in an in-process bus for single-node installs and tests.
+public interface ChatEventBus {
+
+    // Asynchronous - returns once the event is queued, not when it has been delivered
+    void publish(KafkaMessageDTO message);
+}
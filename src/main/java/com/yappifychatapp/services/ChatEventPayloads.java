@@ -0,0 +1,61 @@
+package com.yappifychatapp.services;
+
+import com.yappifychatapp.dto.KafkaMessageDTO;
+import com.yappifychatapp.utils.ChatEventCodec;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Converts raw chat topic record values (binary or JSON, see ChatEventCodec.isBinary) into the
+// WebSocket wire formats. Callers convert once per message and share the result across sessions.
+@Component
+@RequiredArgsConstructor
+public class ChatEventPayloads {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    // Binary-format events with a larger body are deflated
+    @Value("${chat.websocket.binary.compress-threshold:512}")
+    private int compressThreshold;
+
+    // Binary record values are encoded on every call - ChatBroadcaster does it once per message for
+    // all of its subscribers, and ReplayBuffer keeps the JSON of buffered events for resumes
+    public byte[] toJson(byte[] value) {
+        return ChatEventCodec.isBinary(value) ? encodeJson(value) : value;
+    }
+
+    private byte[] encodeJson(byte[] value) {
+        Message<?> message = messagingTemplate.getMessageConverter().toMessage(ChatEventCodec.decode(value), null);
+        if (message == null || !(message.getPayload() instanceof byte[] json)) {
+            throw new IllegalStateException("Chat event could not be serialized to JSON");
+        }
+        return json;
+    }
+
+    public KafkaMessageDTO toMessage(byte[] value) {
+        if (ChatEventCodec.isBinary(value)) {
+            return ChatEventCodec.decode(value);
+        }
+        KafkaMessageDTO message = (KafkaMessageDTO) messagingTemplate.getMessageConverter()
+                .fromMessage(BroadcastPayloads.json(value), KafkaMessageDTO.class);
+        if (message == null) {
+            throw new IllegalArgumentException("Chat event payload could not be decoded");
+        }
+        return message;
+    }
+
+    // One event, or a batch frame when there are several
+    public byte[] toBinary(List<byte[]> values) {
+        if (values.size() == 1) {
+            return ChatEventCodec.encode(toMessage(values.get(0)), compressThreshold);
+        }
+        List<KafkaMessageDTO> messages = new ArrayList<>(values.size());
+        values.forEach(value -> messages.add(toMessage(value)));
+        return ChatEventCodec.encodeBatch(messages, compressThreshold);
+    }
+}
@@ -0,0 +1,155 @@
+package com.yappifychatapp.services;
+
+import com.yappifychatapp.utils.KeyedSerialExecutor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.OrderedMessageChannelDecorator;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Hands a chat frame to the chat's local subscribers. Normal chats go through the simple broker,
+// which walks the subscribers on the calling thread. Hot chats (see HotChatDetector) skip the
+// broker: their subscribers are split into shards by session and each shard is addressed on its
+// own lane in parallel. A session always maps to the same lane, so it still sees the chat's
+// messages in log order. Only the switch between modes can reorder the frame that is in flight
+// through the broker with the first sharded one.
+@Service
+public class ChatFanout implements AutoCloseable {
+
+    // Subscriber count buckets for the latency timers
+    private static final int[] SIZE_BUCKET_BOUNDS = {100, 1_000, 10_000};
+    private static final String[] SIZE_BUCKET_TAGS = {"lt100", "100-1k", "1k-10k", "10k+"};
+    private static final Log LOG = LogFactory.getLog(ChatFanout.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SubscriptionRegistry subscriptionRegistry;
+    private final HotChatDetector hotChatDetector;
+    private final MessageChannel outboundChannel;
+    // sessionId -> ordered view of the outbound channel. The channel runs sends on a thread pool,
+    // so two frames for one session could overtake each other; each decorator queues its own
+    // session's frames, while different sessions still go out in parallel. Dropped on disconnect.
+    private final ConcurrentHashMap<String, OrderedMessageChannelDecorator> sessionChannels = new ConcurrentHashMap<>();
+    private final KeyedSerialExecutor shardLanes;
+
+    private final Timer[] brokerLatency = new Timer[SIZE_BUCKET_TAGS.length];
+    private final Timer[] shardedLatency = new Timer[SIZE_BUCKET_TAGS.length];
+
+    public ChatFanout(SimpMessagingTemplate messagingTemplate,
+                      SubscriptionRegistry subscriptionRegistry,
+                      HotChatDetector hotChatDetector,
+                      @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                      MeterRegistry meterRegistry,
+                      @Value("${chat.fanout.shards:0}") int shards,
+                      @Value("${chat.fanout.max-in-flight:1024}") int maxInFlight) {
+        this.messagingTemplate = messagingTemplate;
+        this.subscriptionRegistry = subscriptionRegistry;
+        this.hotChatDetector = hotChatDetector;
+
+        OrderedMessageChannelDecorator.configureInterceptor(clientOutboundChannel, true);
+        this.outboundChannel = clientOutboundChannel;
+
+        int lanes = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        this.shardLanes = new KeyedSerialExecutor("fanout-shard", lanes, maxInFlight);
+        Gauge.builder("chat.fanout.shards.in-flight", shardLanes, KeyedSerialExecutor::getInFlight)
+                .description("Fan-out shard tasks queued or running")
+                .register(meterRegistry);
+
+        for (int i = 0; i < SIZE_BUCKET_TAGS.length; i++) {
+            brokerLatency[i] = latencyTimer(meterRegistry, "broker", SIZE_BUCKET_TAGS[i]);
+            shardedLatency[i] = latencyTimer(meterRegistry, "sharded", SIZE_BUCKET_TAGS[i]);
+        }
+    }
+
+    // frame carries the payload and content type; destination is the chat topic it belongs to
+    public void send(String chatId, String destination, boolean binary, Message<byte[]> frame) {
+        int bucket = sizeBucket(subscriptionRegistry.getSubscriberCount(chatId));
+        long start = System.nanoTime();
+
+        if (!hotChatDetector.isHot(chatId)) {
+            messagingTemplate.send(destination, frame);
+            brokerLatency[bucket].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        SubscriptionRegistry.Target[][] shards =
+                subscriptionRegistry.shardedSubscribers(chatId, binary, shardLanes.getLaneCount());
+        // The last shard to finish records the time for the whole frame
+        AtomicInteger remaining = new AtomicInteger(shards.length);
+        Runnable shardDone = () -> {
+            if (remaining.decrementAndGet() == 0) {
+                shardedLatency[bucket].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+
+        for (int lane = 0; lane < shards.length; lane++) {
+            SubscriptionRegistry.Target[] shard = shards[lane];
+            try {
+                shardLanes.executeOnLane(lane, () -> {
+                    try {
+                        for (SubscriptionRegistry.Target target : shard) {
+                            sessionChannel(target.sessionId()).send(BroadcastPayloads.forSubscription(frame,
+                                    destination, target.sessionId(), target.subscriptionId()));
+                        }
+                    } finally {
+                        shardDone.run();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while dispatching fan-out for chat " + chatId, e);
+            }
+        }
+    }
+
+    // Runs after SubscriptionRegistry has forgotten the session (see sessionChannel)
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessionChannels.remove(event.getSessionId());
+    }
+
+    private MessageChannel sessionChannel(String sessionId) {
+        OrderedMessageChannelDecorator channel = sessionChannels.computeIfAbsent(sessionId,
+                id -> new OrderedMessageChannelDecorator(outboundChannel, LOG));
+        // A shard snapshot can outlive its session - don't keep a channel onDisconnect already dropped
+        if (!subscriptionRegistry.hasSession(sessionId)) {
+            sessionChannels.remove(sessionId, channel);
+        }
+        return channel;
+    }
+
+    @Override
+    public void close() {
+        shardLanes.close();
+    }
+
+    private static int sizeBucket(int subscribers) {
+        for (int i = 0; i < SIZE_BUCKET_BOUNDS.length; i++) {
+            if (subscribers < SIZE_BUCKET_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return SIZE_BUCKET_BOUNDS.length;
+    }
+
+    private static Timer latencyTimer(MeterRegistry meterRegistry, String mode, String size) {
+        return Timer.builder("chat.fanout.latency")
+                .tag("mode", mode)
+                .tag("size", size)
+                .description("Time to hand one chat frame to all local subscribers")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+}
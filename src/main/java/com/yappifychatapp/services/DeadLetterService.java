@@ -0,0 +1,141 @@
+package com.yappifychatapp.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+// Metrics for the notification retry tiers, and replay of dead letters
+@Service
+@Slf4j
+public class DeadLetterService {
+
+    public static final String RETRY_TOPIC_SUFFIX = "-retry";
+    public static final String DLT_SUFFIX = "-dlt";
+
+    // Committed offsets of this group mark how far the DLT has been replayed
+    private static final String REPLAY_GROUP = "chat-dlt-replay";
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+
+    private final ConsumerFactory<String, byte[]> consumerFactory;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kafka.topic.chat-messages}")
+    private String chatMessagesTopic;
+
+    public DeadLetterService(@Qualifier("broadcastConsumerFactory") ConsumerFactory<String, byte[]> consumerFactory,
+                             KafkaTemplate<String, Object> kafkaTemplate,
+                             MeterRegistry meterRegistry) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // One count per delivery, tagged with the tier it came from ("main", "retry-0", ...)
+    public void recordAttempt(String topic) {
+        String tier = topic.startsWith(chatMessagesTopic + "-")
+                ? topic.substring(chatMessagesTopic.length() + 1)
+                : "main";
+        meterRegistry.counter("chat.kafka.notification.attempts", "tier", tier).increment();
+    }
+
+    public void recordDeadLetter(ConsumerRecord<?, ?> record) {
+        String cause = headerValue(record.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_FQCN));
+        String simpleCause = cause == null ? "unknown" : cause.substring(cause.lastIndexOf('.') + 1);
+        meterRegistry.counter("chat.kafka.dead-letters", "cause", simpleCause).increment();
+
+        log.error("Dead-lettered chat event - key: {}, original offset: {}, cause: {}: {}",
+                record.key(),
+                longHeaderValue(record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_OFFSET)),
+                cause,
+                headerValue(record.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_MESSAGE)));
+    }
+
+    // Sends up to max dead letters not replayed before into the first retry tier. Replays go to the
+    // retry topic rather than the main topic, so they reach the notification consumers again
+    // without being re-broadcast to every WebSocket subscriber.
+    public synchronized int replay(int max) {
+        String dltTopic = chatMessagesTopic + DLT_SUFFIX;
+        String retryTopic = chatMessagesTopic + RETRY_TOPIC_SUFFIX + "-0";
+
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, max);
+
+        int replayed = 0;
+        try (Consumer<String, byte[]> consumer =
+                     consumerFactory.createConsumer(REPLAY_GROUP, "dlt-replay", null, overrides)) {
+            consumer.subscribe(List.of(dltTopic));
+
+            while (replayed < max) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    break;
+                }
+
+                List<CompletableFuture<?>> sends = new ArrayList<>();
+                Map<TopicPartition, OffsetAndMetadata> sent = new HashMap<>();
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    if (replayed == max) {
+                        // The rest stays uncommitted and is picked up by the next replay
+                        break;
+                    }
+                    sends.add(kafkaTemplate.send(toRetry(record, retryTopic)));
+                    sent.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+
+                // Only mark dead letters replayed once the retry tier has them
+                CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+                consumer.commitSync(sent);
+            }
+        }
+
+        meterRegistry.counter("chat.kafka.dead-letters.replayed").increment(replayed);
+        log.info("Replayed {} dead letters from {} to {}", replayed, dltTopic, retryTopic);
+        return replayed;
+    }
+
+    private static ProducerRecord<String, Object> toRetry(ConsumerRecord<String, byte[]> record, String retryTopic) {
+        ProducerRecord<String, Object> retry = new ProducerRecord<>(retryTopic, record.key(), record.value());
+        Header messageId = record.headers().lastHeader(KafkaProducerService.MESSAGE_ID_HEADER);
+        if (messageId != null) {
+            retry.headers().add(messageId);
+        }
+        return retry;
+    }
+
+    // Original offset/partition headers are written as raw big-endian numbers
+    private static Long longHeaderValue(Header header) {
+        return header == null || header.value().length != Long.BYTES ? null : ByteBuffer.wrap(header.value()).getLong();
+    }
+
+    private static String headerValue(Header header) {
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
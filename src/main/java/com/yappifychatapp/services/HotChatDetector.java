@@ -0,0 +1,109 @@
+package com.yappifychatapp.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Flags chats whose fan-out load - message rate times subscriber count on this node - is high
+// enough that one thread walking every subscriber becomes the bottleneck. Local subscribers are
+// used rather than chat membership: that is the work this node actually does, and it needs no
+// Mongo lookup. A chat cools down only below half the threshold so it does not flap.
+@Service
+@Slf4j
+public class HotChatDetector {
+
+    // Smoothing for the per-chat message rate; higher reacts faster
+    private static final double RATE_WEIGHT = 0.5;
+
+    private final SubscriptionRegistry subscriptionRegistry;
+
+    @Value("${chat.fanout.hot-deliveries-per-second:20000}")
+    private double hotDeliveriesPerSecond;
+
+    // Smaller chats are never tracked, so the common case costs one size lookup per message
+    @Value("${chat.fanout.hot-min-subscribers:500}")
+    private int minSubscribers;
+
+    // chatId -> messages since the last evaluation, and the smoothed rate in messages per second
+    private final ConcurrentHashMap<String, Activity> activity = new ConcurrentHashMap<>();
+    private final Set<String> hotChats = ConcurrentHashMap.newKeySet();
+    // nanoTime of the previous evaluation - fixedDelay runs drift by however long each run takes
+    private long lastEvaluatedAt = System.nanoTime();
+
+    private final Counter becameHot;
+    private final Counter cooledDown;
+
+    public HotChatDetector(SubscriptionRegistry subscriptionRegistry, MeterRegistry meterRegistry) {
+        this.subscriptionRegistry = subscriptionRegistry;
+        this.becameHot = meterRegistry.counter("chat.fanout.hot.transitions", "to", "hot");
+        this.cooledDown = meterRegistry.counter("chat.fanout.hot.transitions", "to", "normal");
+        Gauge.builder("chat.fanout.hot.chats", hotChats, Set::size)
+                .description("Chats currently delivered through sharded fan-out")
+                .register(meterRegistry);
+    }
+
+    public void record(String chatId, int messages) {
+        if (subscriptionRegistry.getSubscriberCount(chatId) < minSubscribers) {
+            return;
+        }
+        activity.computeIfAbsent(chatId, id -> new Activity()).messages.addAndGet(messages);
+    }
+
+    public boolean isHot(String chatId) {
+        return hotChats.contains(chatId);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.fanout.evaluate-ms:1000}")
+    public void evaluate() {
+        long now = System.nanoTime();
+        double seconds = (now - lastEvaluatedAt) / 1_000_000_000.0;
+        lastEvaluatedAt = now;
+        if (seconds <= 0) {
+            return;
+        }
+
+        for (Map.Entry<String, Activity> entry : activity.entrySet()) {
+            String chatId = entry.getKey();
+            Activity chat = entry.getValue();
+
+            double rate = chat.messages.getAndSet(0) / seconds;
+            chat.rate = RATE_WEIGHT * rate + (1 - RATE_WEIGHT) * chat.rate;
+            int subscribers = subscriptionRegistry.getSubscriberCount(chatId);
+            double load = chat.rate * subscribers;
+
+            if (load >= hotDeliveriesPerSecond && subscribers >= minSubscribers) {
+                if (hotChats.add(chatId)) {
+                    becameHot.increment();
+                    log.info("Chat {} is hot - {} msg/s to {} local subscribers", chatId,
+                            String.format("%.1f", chat.rate), subscribers);
+                }
+            } else if (load < hotDeliveriesPerSecond / 2 || subscribers < minSubscribers) {
+                if (hotChats.remove(chatId)) {
+                    cooledDown.increment();
+                    log.info("Chat {} cooled down - {} msg/s to {} local subscribers", chatId,
+                            String.format("%.1f", chat.rate), subscribers);
+                }
+                // Quiet and cold - stop tracking until it is busy again
+                if (chat.rate < 0.01) {
+                    activity.remove(chatId);
+                }
+            }
+        }
+    }
+
+    private static final class Activity {
+
+        private final AtomicLong messages = new AtomicLong();
+        // Only written by the evaluating thread
+        private volatile double rate;
+    }
+}
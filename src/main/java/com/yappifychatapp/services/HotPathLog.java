@@ -0,0 +1,74 @@
+package com.yappifychatapp.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Rate limit for per-message log lines. Each call site gets its own budget of lines per second;
+// everything over it is dropped and only counted (chat.logging.lines{site, outcome}). Callers
+// check first and build the line only when allowed:
+//
+//   if (hotPathLog.allow("message.send")) {
+//       log.atInfo().setMessage("Message saved").addKeyValue("messageId", id).log();
+//   }
+@Component
+public class HotPathLog {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    // Lines per second per call site; 0 keeps per-message logging off and only counts
+    @Value("${chat.logging.hot-path.per-second:0}")
+    private int perSecond;
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, Site> sites = new ConcurrentHashMap<>();
+
+    public HotPathLog(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean allow(String site) {
+        return sites.computeIfAbsent(site, this::register).allow(perSecond);
+    }
+
+    private Site register(String site) {
+        return new Site(
+                meterRegistry.counter("chat.logging.lines", "site", site, "outcome", "emitted"),
+                meterRegistry.counter("chat.logging.lines", "site", site, "outcome", "suppressed"));
+    }
+
+    private static final class Site {
+
+        private final Counter emitted;
+        private final Counter suppressed;
+        private final AtomicLong window = new AtomicLong(-1);
+        private final AtomicInteger used = new AtomicInteger();
+
+        private Site(Counter emitted, Counter suppressed) {
+            this.emitted = emitted;
+            this.suppressed = suppressed;
+        }
+
+        private boolean allow(int perSecond) {
+            if (perSecond > 0) {
+                // Fixed one-second windows; whoever moves the window resets the budget
+                long second = System.nanoTime() / NANOS_PER_SECOND;
+                long current = window.get();
+                if (current != second && window.compareAndSet(current, second)) {
+                    used.set(0);
+                }
+                if (used.incrementAndGet() <= perSecond) {
+                    emitted.increment();
+                    return true;
+                }
+            }
+            suppressed.increment();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.yappifychatapp.services;
+
+import com.yappifychatapp.dto.KafkaMessageDTO;
+import com.yappifychatapp.utils.ChatEventCodec;
+import com.yappifychatapp.utils.KeyedSerialExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Single-node bus: events never leave the JVM. Each dispatcher thread owns one ring buffer and a
+// chat always hashes to the same ring, so per-chat order matches publish order. Publishers claim
+// slots with a CAS and never take a lock; a full ring makes the publisher wait (backpressure).
+// Notifications run on their own workers, so a slow notification never holds up a broadcast.
+@Service
+@Profile("local-bus")
+@Slf4j
+public class InProcessChatEventBus implements ChatEventBus, AutoCloseable {
+
+    // Events taken per dispatcher pass - a chat's events within one pass go out as one frame
+    private static final int MAX_DRAIN = 256;
+    // Empty polls spent spinning before the dispatcher parks until a publisher wakes it
+    private static final int SPINS_BEFORE_PARK = 2000;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final ChatBroadcaster chatBroadcaster;
+    private final NotificationService notificationService;
+    private final MessageTracer messageTracer;
+    // Keyed by chat, so a chat's notifications keep publish order; full workers block the dispatcher
+    private final KeyedSerialExecutor notificationWorkers;
+    private final Ring[] rings;
+    private final Thread[] dispatchers;
+    private volatile boolean running = true;
+
+    private final Counter published;
+    private final Counter publishWaits;
+    private final Counter notificationFailures;
+    private final Timer dispatchLatency;
+
+    public InProcessChatEventBus(ChatBroadcaster chatBroadcaster,
+                                 NotificationService notificationService,
+                                 MessageTracer messageTracer,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${chat.bus.dispatchers:2}") int dispatcherCount,
+                                 @Value("${chat.bus.ring-capacity:65536}") int ringCapacity,
+                                 @Value("${chat.bus.notification-workers:1}") int notificationWorkers,
+                                 @Value("${chat.bus.notification-max-in-flight:10000}") int notificationMaxInFlight) {
+        if (dispatcherCount <= 0) {
+            throw new IllegalArgumentException("chat.bus.dispatchers must be positive");
+        }
+        if (ringCapacity <= 0 || Integer.bitCount(ringCapacity) != 1) {
+            throw new IllegalArgumentException("chat.bus.ring-capacity must be a power of two");
+        }
+        this.chatBroadcaster = chatBroadcaster;
+        this.notificationService = notificationService;
+        this.messageTracer = messageTracer;
+        this.notificationWorkers = new KeyedSerialExecutor("chat-bus-notify", notificationWorkers,
+                notificationMaxInFlight);
+
+        this.published = Counter.builder("chat.bus.published")
+                .description("Chat events published to the in-process bus")
+                .register(meterRegistry);
+        this.publishWaits = Counter.builder("chat.bus.publish.waits")
+                .description("Times a publisher waited on a full ring")
+                .register(meterRegistry);
+        this.notificationFailures = Counter.builder("chat.bus.notification.failures")
+                .description("Notification processing failures on the in-process bus")
+                .register(meterRegistry);
+        this.dispatchLatency = Timer.builder("chat.bus.dispatch.latency")
+                .description("Time from publish until the event has been handed to local subscribers")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+
+        this.rings = new Ring[dispatcherCount];
+        this.dispatchers = new Thread[dispatcherCount];
+        for (int i = 0; i < dispatcherCount; i++) {
+            Ring ring = new Ring(ringCapacity);
+            rings[i] = ring;
+            dispatchers[i] = Thread.ofPlatform().name("chat-bus-" + i).daemon(true).unstarted(() -> dispatch(ring));
+            ring.dispatcher = dispatchers[i];
+        }
+        Gauge.builder("chat.bus.backlog", this, InProcessChatEventBus::backlog)
+                .description("Events published but not yet taken by a dispatcher")
+                .register(meterRegistry);
+        Gauge.builder("chat.bus.notification.in-flight", this.notificationWorkers, KeyedSerialExecutor::getInFlight)
+                .description("Notifications queued or running on the notification workers")
+                .register(meterRegistry);
+
+        for (Thread dispatcher : dispatchers) {
+            dispatcher.start();
+        }
+    }
+
+    @Override
+    public void publish(KafkaMessageDTO message) {
+        if (!running) {
+            throw new IllegalStateException("Chat event bus is closed");
+        }
+        // Same raw value the Kafka bus would carry, so replay buffer and broadcaster see no difference
+        Event event = new Event(message, ChatEventCodec.encode(message), System.nanoTime(),
+                messageTracer.markPublished());
+        Ring ring = rings[(message.getChatId().hashCode() & 0x7fffffff) % rings.length];
+
+        while (!ring.offer(event)) {
+            if (!running) {
+                throw new IllegalStateException("Chat event bus is closed");
+            }
+            publishWaits.increment();
+            ring.wake();
+            LockSupport.parkNanos(FULL_WAIT_NANOS);
+        }
+        ring.wake();
+        published.increment();
+    }
+
+    // Stops taking events, then lets each dispatcher drain what is already queued and the
+    // notification workers finish what the dispatchers handed them
+    @Override
+    public void close() {
+        running = false;
+        for (Ring ring : rings) {
+            LockSupport.unpark(ring.dispatcher);
+        }
+        try {
+            for (Thread dispatcher : dispatchers) {
+                dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        notificationWorkers.close();
+    }
+
+    private void dispatch(Ring ring) {
+        List<Event> drained = new ArrayList<>(MAX_DRAIN);
+        int idle = 0;
+        while (running || !ring.isEmpty()) {
+            Event event;
+            while (drained.size() < MAX_DRAIN && (event = ring.poll()) != null) {
+                drained.add(event);
+            }
+
+            if (drained.isEmpty()) {
+                // Spin briefly for the next event, which keeps latency low under load,
+                // then park so an idle bus costs no CPU
+                if (++idle < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    ring.park();
+                    idle = 0;
+                }
+                continue;
+            }
+
+            idle = 0;
+            try {
+                handle(drained);
+            } catch (Exception e) {
+                log.error("Error dispatching {} chat events: {}", drained.size(), e.getMessage(), e);
+            }
+            drained.clear();
+        }
+    }
+
+    private void handle(List<Event> events) throws InterruptedException {
+        Map<String, List<byte[]>> byChat = new LinkedHashMap<>();
+        List<MessageTracer.Trace> traces = new ArrayList<>(0);
+        for (Event event : events) {
+            KafkaMessageDTO message = event.message();
+            MessageTracer.Trace trace = messageTracer.markConsumed(event.trace());
+            if (chatBroadcaster.accept(message.getChatId(), message.getMessageId(), event.payload())) {
+                byChat.computeIfAbsent(message.getChatId(), id -> new ArrayList<>()).add(event.payload());
+                if (trace != null) {
+                    traces.add(trace);
+                }
+            }
+        }
+        byChat.forEach(chatBroadcaster::deliver);
+        traces.forEach(messageTracer::recordDispatched);
+
+        long now = System.nanoTime();
+        for (Event event : events) {
+            dispatchLatency.record(now - event.publishedAt(), TimeUnit.NANOSECONDS);
+        }
+
+        for (Event event : events) {
+            KafkaMessageDTO message = event.message();
+            notificationWorkers.execute(message.getChatId(), () -> processNotification(message));
+        }
+    }
+
+    // No retry tiers in process - a failure is counted and logged, the message stays in Mongo
+    private void processNotification(KafkaMessageDTO message) {
+        try {
+            notificationService.process(message);
+        } catch (Exception e) {
+            notificationFailures.increment();
+            log.error("Notification failed for message {} in chat {}: {}",
+                    message.getMessageId(), message.getChatId(), e.getMessage(), e);
+        }
+    }
+
+    private double backlog() {
+        long total = 0;
+        for (Ring ring : rings) {
+            total += ring.size();
+        }
+        return total;
+    }
+
+    // trace is null unless the message was sampled by MessageTracer
+    private record Event(KafkaMessageDTO message, byte[] payload, long publishedAt, MessageTracer.Trace trace) {
+    }
+
+    // Bounded multi-producer, single-consumer ring. A publisher claims a sequence by CAS on tail
+    // and then fills the slot; the dispatcher reads slots in sequence order, so a claimed but not
+    // yet filled slot simply looks empty until the publisher finishes.
+    private static final class Ring {
+
+        private final AtomicReferenceArray<Event> slots;
+        private final int mask;
+        // Next sequence to claim, shared by all publishers
+        private final AtomicLong tail = new AtomicLong();
+        // Next sequence to read - written only by the dispatcher
+        private volatile long head;
+        private volatile boolean sleeping;
+        private Thread dispatcher;
+
+        private Ring(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        private boolean offer(Event event) {
+            long sequence;
+            do {
+                sequence = tail.get();
+                if (sequence - head >= slots.length()) {
+                    return false;
+                }
+            } while (!tail.compareAndSet(sequence, sequence + 1));
+            slots.set((int) (sequence & mask), event);
+            return true;
+        }
+
+        private Event poll() {
+            long sequence = head;
+            int index = (int) (sequence & mask);
+            Event event = slots.get(index);
+            if (event == null) {
+                return null;
+            }
+            // Cleared before head moves, so a publisher that sees the new head sees a free slot
+            slots.set(index, null);
+            head = sequence + 1;
+            return event;
+        }
+
+        private boolean isEmpty() {
+            return slots.get((int) (head & mask)) == null;
+        }
+
+        private int size() {
+            return (int) Math.max(0, tail.get() - head);
+        }
+
+        // The publisher writes its slot before reading sleeping, the dispatcher sets sleeping
+        // before re-checking the slot - one of them always sees the other, so no wake-up is lost
+        private void park() {
+            sleeping = true;
+            if (isEmpty()) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            sleeping = false;
+        }
+
+        private void wake() {
+            if (sleeping) {
+                LockSupport.unpark(dispatcher);
+            }
+        }
+    }
+}
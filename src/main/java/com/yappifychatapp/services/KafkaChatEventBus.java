@@ -0,0 +1,20 @@
+package com.yappifychatapp.services;
+
+import com.yappifychatapp.dto.KafkaMessageDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+// Cluster bus: events go through the chat topic and come back via KafkaConsumerService on every node
+@Service
+@Profile("!local-bus")
+@RequiredArgsConstructor
+public class KafkaChatEventBus implements ChatEventBus {
+
+    private final KafkaProducerService kafkaProducerService;
+
+    @Override
+    public void publish(KafkaMessageDTO message) {
+        kafkaProducerService.sendMessage(message);
+    }
+}
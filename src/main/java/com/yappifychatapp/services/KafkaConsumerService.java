@@ -1,72 +1,181 @@
 package com.yappifychatapp.services;
 
 import com.yappifychatapp.dto.KafkaMessageDTO;
+import com.yappifychatapp.utils.KeyedSerialExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.annotation.BackOff;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Consuming side of KafkaChatEventBus
 @Service
+@Profile("!local-bus")
 @RequiredArgsConstructor
 @Slf4j
 public class KafkaConsumerService {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ChatBroadcaster chatBroadcaster;
+    private final BroadcastMetrics broadcastMetrics;
+    private final NotificationService notificationService;
+    private final MessageTracer messageTracer;
+    private final DeadLetterService deadLetterService;
+    private final KeyedSerialExecutor broadcastWorkers;
+
+    // Exactly one of the broadcast listeners below starts, picked by chat.broadcast.mode
+    // (batch, record or parallel). Group id is per node in fan-out mode so every node sees
+    // every message (see ChatInstance).
 
+    // Record-at-a-time mode
     @KafkaListener(
+            id = "chat-broadcast-record",
             topics = "${kafka.topic.chat-messages}",
-            groupId = "chat-consumer-group",
-            containerFactory = "kafkaListenerContainerFactory"
+            groupId = "#{@chatInstance.broadcastGroupId}",
+            containerFactory = "broadcastListenerContainerFactory",
+            autoStartup = "#{'${chat.broadcast.mode:batch}' == 'record'}"
     )
-    public void consumeMessage(@Payload KafkaMessageDTO messageDTO,
-                               @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-                               @Header(KafkaHeaders.OFFSET) long offset) {
+    public void consumeMessage(ConsumerRecord<String, byte[]> record) {
+        MessageTracer.Trace trace = trace(record);
+        if (accept(record)) {
+            chatBroadcaster.deliver(record.key(), List.of(record.value()));
+            messageTracer.recordDispatched(trace);
+        }
+    }
 
-        if (messageDTO == null) {
-            log.warn("Received null message from Kafka - partition: {}, offset: {}", partition, offset);
+    // Batch mode - one call per poll and one broker frame per chat instead of one per record
+    @KafkaListener(
+            id = "chat-broadcast-batch",
+            topics = "${kafka.topic.chat-messages}",
+            groupId = "#{@chatInstance.broadcastGroupId}",
+            containerFactory = "broadcastBatchListenerContainerFactory",
+            autoStartup = "#{'${chat.broadcast.mode:batch}' == 'batch'}"
+    )
+    public void consumeBatch(List<ConsumerRecord<String, byte[]>> records) {
+        broadcastMetrics.recordBatch(records.size());
+
+        // A chat's records all come from one partition in offset order; the linked map keeps that order
+        Map<String, List<byte[]>> byChat = new LinkedHashMap<>();
+        List<MessageTracer.Trace> traces = new ArrayList<>(0);
+        for (ConsumerRecord<String, byte[]> record : records) {
+            MessageTracer.Trace trace = trace(record);
+            if (accept(record)) {
+                byChat.computeIfAbsent(record.key(), id -> new ArrayList<>()).add(record.value());
+                if (trace != null) {
+                    traces.add(trace);
+                }
+            }
+        }
+
+        byChat.forEach(chatBroadcaster::deliver);
+        traces.forEach(messageTracer::recordDispatched);
+        log.debug("Broadcast batch - records: {}, chats: {}", records.size(), byChat.size());
+    }
+
+    // Parallel mode - different chats are delivered concurrently on worker lanes, each chat in
+    // offset order. Throughput scales with lanes rather than with the partition count.
+    @KafkaListener(
+            id = "chat-broadcast-parallel",
+            topics = "${kafka.topic.chat-messages}",
+            groupId = "#{@chatInstance.broadcastGroupId}",
+            containerFactory = "broadcastParallelListenerContainerFactory",
+            autoStartup = "#{'${chat.broadcast.mode:batch}' == 'parallel'}"
+    )
+    public void consumeParallel(ConsumerRecord<String, byte[]> record, Acknowledgment ack) throws InterruptedException {
+        MessageTracer.Trace trace = trace(record);
+        if (!accept(record)) {
+            ack.acknowledge();
             return;
         }
 
-        log.info("Received message from Kafka - ChatId: {}, SenderId: {}, Partition: {}, Offset: {}",
-                messageDTO.getChatId(), messageDTO.getSenderId(), partition, offset);
+        broadcastWorkers.execute(record.key(), () -> {
+            try {
+                chatBroadcaster.deliver(record.key(), List.of(record.value()));
+                messageTracer.recordDispatched(trace);
+            } finally {
+                ack.acknowledge();
+            }
+        });
+    }
 
-        try {
-            // Broadcast to all subscribers of this chat
-            String destination = "/topic/chat/" + messageDTO.getChatId();
-            messagingTemplate.convertAndSend(destination, messageDTO);
+    // Validates a record and hands it to the broadcaster; true when it should be delivered
+    private boolean accept(ConsumerRecord<String, byte[]> record) {
+        // Records are keyed by chatId, so routing needs no payload parsing
+        String chatId = record.key();
+        byte[] payload = record.value();
 
-            log.info("Message broadcasted to WebSocket destination: {}", destination);
-        } catch (Exception e) {
-            log.error("Error broadcasting message to WebSocket: {}", e.getMessage(), e);
-            // Message is still marked as consumed, won't retry
+        if (chatId == null || payload == null) {
+            log.warn("Received message without chat key or payload - partition: {}, offset: {}",
+                    record.partition(), record.offset());
+            return false;
         }
+        return chatBroadcaster.accept(chatId, messageId(record), payload);
+    }
+
+    // Sampled records carry their upstream timestamps; null for the rest
+    private MessageTracer.Trace trace(ConsumerRecord<String, byte[]> record) {
+        org.apache.kafka.common.header.Header header = record.headers().lastHeader(MessageTracer.TRACE_HEADER);
+        return header != null ? messageTracer.consumed(header.value()) : null;
+    }
+
+    private static String messageId(ConsumerRecord<String, byte[]> record) {
+        org.apache.kafka.common.header.Header header =
+                record.headers().lastHeader(KafkaProducerService.MESSAGE_ID_HEADER);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
     }
 
+    // Failures are retried through delay topics (<topic>-retry-0, -1, ...) instead of in place, so a
+    // failing record never holds up the partition, and land in <topic>-dlt with the cause in headers
+    @RetryableTopic(
+            attempts = "${chat.kafka.retry.attempts:4}",
+            backOff = @BackOff(
+                    delayString = "${chat.kafka.retry.initial-delay-ms:1000}",
+                    multiplierString = "${chat.kafka.retry.multiplier:4}",
+                    maxDelayString = "${chat.kafka.retry.max-delay-ms:60000}"),
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+            retryTopicSuffix = DeadLetterService.RETRY_TOPIC_SUFFIX,
+            dltTopicSuffix = DeadLetterService.DLT_SUFFIX,
+            kafkaTemplate = "kafkaTemplate"
+    )
     @KafkaListener(
+            id = "chat-notifications",
             topics = "${kafka.topic.chat-messages}",
             groupId = "chat-notification-group",
             containerFactory = "kafkaListenerContainerFactory"
     )
     public void consumeForNotifications(@Payload KafkaMessageDTO messageDTO,
+                                        @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
                                         @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
                                         @Header(KafkaHeaders.OFFSET) long offset) {
 
+        deadLetterService.recordAttempt(topic);
+
         if (messageDTO == null) {
             log.warn("Received null message for notifications - partition: {}, offset: {}", partition, offset);
             return;
         }
 
-        log.info("Processing notification for message in chat: {} - Partition: {}, Offset: {}",
-                messageDTO.getChatId(), partition, offset);
+        notificationService.process(messageDTO);
+    }
 
-        // Here you can add notification logic:
-        // - Push notifications
-        // - Email notifications
-        // - Update unread counts
-        // - etc.
+    // Records that exhausted every retry tier. They stay in the DLT for inspection and can be
+    // sent back through the retry tiers with the admin replay endpoint.
+    @DltHandler
+    public void handleDeadLetter(ConsumerRecord<?, ?> record) {
+        deadLetterService.recordDeadLetter(record);
     }
-}
\ No newline at end of file
+}
@@ -3,11 +3,13 @@ package com.yappifychatapp.services;
 import com.yappifychatapp.dto.KafkaMessageDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
 
 @Service
@@ -15,21 +17,31 @@ import java.util.concurrent.CompletableFuture;
 @Slf4j
 public class KafkaProducerService {
 
+    // Lets consumers index a record without parsing its payload
+    public static final String MESSAGE_ID_HEADER = "message-id";
+
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MessageTracer messageTracer;
+    private final HotPathLog hotPathLog;
 
     @Value("${kafka.topic.chat-messages}")
     private String chatMessagesTopic;
 
     public void sendMessage(KafkaMessageDTO messageDTO) {
-        log.info("Sending message to Kafka topic: {}", chatMessagesTopic);
-
+        MessageTracer.Trace trace = messageTracer.markPublished();
         CompletableFuture<SendResult<String, Object>> future =
-                kafkaTemplate.send(chatMessagesTopic, messageDTO.getChatId(), messageDTO);
+                kafkaTemplate.send(toRecord(messageDTO, trace));
 
         future.whenComplete((result, ex) -> {
             if (ex == null) {
-                log.info("Message sent successfully to topic: {} with offset: {}",
-                        chatMessagesTopic, result.getRecordMetadata().offset());
+                messageTracer.recordAck(trace);
+                if (hotPathLog.allow("kafka.ack")) {
+                    log.atInfo().setMessage("Message sent to Kafka")
+                            .addKeyValue("topic", chatMessagesTopic)
+                            .addKeyValue("messageId", messageDTO.getMessageId())
+                            .addKeyValue("offset", result.getRecordMetadata().offset())
+                            .log();
+                }
             } else {
                 log.error("Failed to send message to Kafka: {}", ex.getMessage());
             }
@@ -38,8 +50,10 @@ public class KafkaProducerService {
 
     public void sendMessageSync(KafkaMessageDTO messageDTO) {
         try {
+            MessageTracer.Trace trace = messageTracer.markPublished();
             SendResult<String, Object> result =
-                    kafkaTemplate.send(chatMessagesTopic, messageDTO.getChatId(), messageDTO).get();
+                    kafkaTemplate.send(toRecord(messageDTO, trace)).get();
+            messageTracer.recordAck(trace);
             log.info("Message sent synchronously to topic: {} with offset: {}",
                     chatMessagesTopic, result.getRecordMetadata().offset());
         } catch (Exception e) {
@@ -47,4 +61,16 @@ public class KafkaProducerService {
             throw new RuntimeException("Failed to send message to Kafka", e);
         }
     }
-}
\ No newline at end of file
+
+    private ProducerRecord<String, Object> toRecord(KafkaMessageDTO messageDTO, MessageTracer.Trace trace) {
+        ProducerRecord<String, Object> record =
+                new ProducerRecord<>(chatMessagesTopic, messageDTO.getChatId(), messageDTO);
+        if (messageDTO.getMessageId() != null) {
+            record.headers().add(MESSAGE_ID_HEADER, messageDTO.getMessageId().getBytes(StandardCharsets.UTF_8));
+        }
+        if (trace != null) {
+            record.headers().add(MessageTracer.TRACE_HEADER, trace.toHeader());
+        }
+        return record;
+    }
+}
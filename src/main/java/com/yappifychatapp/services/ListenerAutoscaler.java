@@ -0,0 +1,308 @@
+package com.yappifychatapp.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Adjusts the concurrency of running listener containers from their consumer lag and listener
+// latency. Scaling up doubles (a spike should be absorbed within a couple of checks), scaling
+// down removes one consumer at a time and only after several quiet checks. Every change
+// restarts the container and therefore rebalances its group, so changes are rate limited.
+// For the broadcast listeners that restart stalls live delivery on this node until the new
+// consumers own their partitions again; they are therefore left out unless listed explicitly.
+@Service
+@Slf4j
+public class ListenerAutoscaler implements AutoCloseable {
+
+    private static final long ADMIN_TIMEOUT_SECONDS = 5;
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final KafkaAdmin kafkaAdmin;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.kafka.autoscale.enabled:true}")
+    private boolean enabled;
+
+    // Listener ids (see @KafkaListener id) under control; stopped ones are skipped
+    @Value("${chat.kafka.autoscale.listeners:chat-notifications}")
+    private List<String> listenerIds;
+
+    @Value("${chat.kafka.autoscale.min-concurrency:1}")
+    private int minConcurrency;
+
+    // Also capped at the partition count - extra consumers would sit idle
+    @Value("${chat.kafka.autoscale.max-concurrency:12}")
+    private int maxConcurrency;
+
+    // Total group lag above which a listener is scaled up
+    @Value("${chat.kafka.autoscale.scale-up-lag:1000}")
+    private long scaleUpLag;
+
+    // Lag at or below this counts as a quiet check
+    @Value("${chat.kafka.autoscale.scale-down-lag:50}")
+    private long scaleDownLag;
+
+    // Mean listener call time above which any lag triggers a scale up, and scale down is held off
+    @Value("${chat.kafka.autoscale.max-latency-ms:200}")
+    private long maxLatencyMs;
+
+    @Value("${chat.kafka.autoscale.scale-down-after:4}")
+    private int scaleDownAfter;
+
+    @Value("${chat.kafka.autoscale.cooldown-ms:60000}")
+    private long cooldownMs;
+
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+    private volatile AdminClient adminClient;
+
+    public ListenerAutoscaler(KafkaListenerEndpointRegistry listenerRegistry,
+                              KafkaAdmin kafkaAdmin,
+                              MeterRegistry meterRegistry) {
+        this.listenerRegistry = listenerRegistry;
+        this.kafkaAdmin = kafkaAdmin;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Scheduled(fixedDelayString = "${chat.kafka.autoscale.interval-ms:15000}",
+            initialDelayString = "${chat.kafka.autoscale.interval-ms:15000}")
+    public void evaluate() {
+        if (!enabled) {
+            return;
+        }
+        for (String listenerId : listenerIds) {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+            if (!(container instanceof ConcurrentMessageListenerContainer<?, ?> concurrent) || !concurrent.isRunning()) {
+                continue;
+            }
+            try {
+                evaluate(listenerId, concurrent);
+            } catch (Exception e) {
+                log.warn("Autoscale check failed for listener {}: {}", listenerId, e.getMessage());
+            }
+        }
+    }
+
+    // Lag and concurrency per listener as of the last check; empty while autoscaling is off
+    public Map<String, ListenerStatus> status() {
+        Map<String, ListenerStatus> status = new HashMap<>();
+        states.forEach((listenerId, state) -> status.put(listenerId,
+                new ListenerStatus(state.groupId, state.lag.get(), state.concurrency.get(), state.checkedAt)));
+        return status;
+    }
+
+    @Override
+    public void close() {
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+
+    private void evaluate(String listenerId, ConcurrentMessageListenerContainer<?, ?> container) throws Exception {
+        State state = states.computeIfAbsent(listenerId, this::register);
+        int current = container.getConcurrency();
+        state.concurrency.set(current);
+
+        Lag lag = lag(container, container.getGroupId(), container.getContainerProperties().getTopics());
+        state.lag.set(lag.total);
+        state.groupId = container.getGroupId();
+        state.checkedAt = System.currentTimeMillis();
+        double latencyMs = meanLatencyMs(listenerId, state);
+
+        int ceiling = Math.max(minConcurrency, Math.min(maxConcurrency, lag.partitions));
+        int target = current;
+        boolean busy = lag.total > scaleUpLag || (lag.total > 0 && latencyMs > maxLatencyMs);
+        if (busy) {
+            state.quietChecks = 0;
+            target = Math.min(ceiling, current * 2);
+        } else if (lag.total <= scaleDownLag && latencyMs <= maxLatencyMs) {
+            if (++state.quietChecks >= scaleDownAfter) {
+                target = Math.max(minConcurrency, current - 1);
+            }
+        } else {
+            state.quietChecks = 0;
+        }
+        // A lowered bound applies even without load
+        target = Math.max(minConcurrency, Math.min(target, ceiling));
+
+        log.debug("Autoscale {} - concurrency: {}, lag: {}, partitions: {}, latency: {} ms",
+                listenerId, current, lag.total, lag.partitions, String.format("%.1f", latencyMs));
+
+        if (target == current) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - state.lastChangeAt < cooldownMs) {
+            state.held.increment();
+            return;
+        }
+
+        state.lastChangeAt = now;
+        state.quietChecks = 0;
+        (target > current ? state.scaledUp : state.scaledDown).increment();
+        log.info("Scaling listener {} from {} to {} consumers - lag: {}, latency: {} ms",
+                listenerId, current, target, lag.total, String.format("%.1f", latencyMs));
+
+        // Concurrency is read when the container starts
+        int newConcurrency = target;
+        container.stop(() -> {
+            container.setConcurrency(newConcurrency);
+            container.start();
+            state.concurrency.set(newConcurrency);
+        });
+    }
+
+    // Sum of (log end - committed) over the group's partitions. A partition without a commit yet
+    // (a new group, or one whose offsets expired) has no committed position, so the lag the
+    // container's own consumers report for it (log end - fetch position) is used instead.
+    private Lag lag(MessageListenerContainer container, String groupId, String[] topics) throws Exception {
+        AdminClient admin = admin();
+        Map<String, TopicDescription> descriptions = admin.describeTopics(Arrays.asList(topics))
+                .allTopicNames().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        Map<TopicPartition, OffsetSpec> request = new HashMap<>();
+        descriptions.values().forEach(description -> description.partitions().forEach(partition ->
+                request.put(new TopicPartition(description.name(), partition.partition()), OffsetSpec.latest())));
+
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends =
+                admin.listOffsets(request).all().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(groupId)
+                .partitionsToOffsetAndMetadata().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        Map<String, Long> consumerLag = consumerLag(container);
+        long total = 0;
+        for (Map.Entry<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> end : ends.entrySet()) {
+            OffsetAndMetadata offset = committed.get(end.getKey());
+            if (offset != null) {
+                total += Math.max(0, end.getValue().offset() - offset.offset());
+            } else {
+                total += consumerLag.getOrDefault(lagKey(end.getKey().topic(), end.getKey().partition()), 0L);
+            }
+        }
+        return new Lag(total, request.size());
+    }
+
+    // records-lag of every partition assigned to the container's consumers, keyed by lagKey.
+    // Partitions that have not been fetched yet report NaN and are left out.
+    private static Map<String, Long> consumerLag(MessageListenerContainer container) {
+        Map<String, Long> lag = new HashMap<>();
+        container.metrics().values().forEach(metrics -> metrics.forEach((name, metric) -> {
+            if (!"records-lag".equals(name.name()) || !"consumer-fetch-manager-metrics".equals(name.group())) {
+                return;
+            }
+            String topic = name.tags().get("topic");
+            String partition = name.tags().get("partition");
+            if (topic != null && partition != null && metric.metricValue() instanceof Double value && !value.isNaN()) {
+                lag.put(lagKey(topic, Integer.parseInt(partition)), Math.max(0, value.longValue()));
+            }
+        }));
+        return lag;
+    }
+
+    // Consumer metric tags may carry the topic with '.' replaced by '_' - both sides are normalized
+    private static String lagKey(String topic, int partition) {
+        return topic.replace('.', '_') + "/" + partition;
+    }
+
+    // Mean listener call time since the previous check, from the container's own timers
+    // (spring.kafka.listener, one per child container named <listener id>-<n>)
+    private double meanLatencyMs(String listenerId, State state) {
+        long count = 0;
+        double totalMs = 0;
+        List<Timer> timers = new ArrayList<>(meterRegistry.find("spring.kafka.listener").timers());
+        for (Timer timer : timers) {
+            String name = timer.getId().getTag("name");
+            if (name != null && name.startsWith(listenerId + "-")) {
+                count += timer.count();
+                totalMs += timer.totalTime(TimeUnit.MILLISECONDS);
+            }
+        }
+        long calls = count - state.lastCount;
+        double spentMs = totalMs - state.lastTotalMs;
+        state.lastCount = count;
+        state.lastTotalMs = totalMs;
+        // Timers of stopped children go away on restart, which can make the deltas negative
+        return calls > 0 && spentMs >= 0 ? spentMs / calls : 0.0;
+    }
+
+    private State register(String listenerId) {
+        State state = new State(
+                meterRegistry.counter("chat.kafka.autoscale.decisions", "listener", listenerId, "action", "up"),
+                meterRegistry.counter("chat.kafka.autoscale.decisions", "listener", listenerId, "action", "down"),
+                meterRegistry.counter("chat.kafka.autoscale.decisions", "listener", listenerId, "action", "held"));
+        Gauge.builder("chat.kafka.listener.lag", state.lag, AtomicLong::get)
+                .tag("listener", listenerId)
+                .description("Consumer group lag of the listener at the last autoscale check")
+                .register(meterRegistry);
+        Gauge.builder("chat.kafka.listener.concurrency", state.concurrency, AtomicInteger::get)
+                .tag("listener", listenerId)
+                .description("Consumers currently running for the listener")
+                .register(meterRegistry);
+        return state;
+    }
+
+    private AdminClient admin() {
+        AdminClient admin = adminClient;
+        if (admin == null) {
+            synchronized (this) {
+                if (adminClient == null) {
+                    adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+                }
+                admin = adminClient;
+            }
+        }
+        return admin;
+    }
+
+    public record ListenerStatus(String groupId, long lag, int concurrency, long checkedAt) {
+    }
+
+    private record Lag(long total, int partitions) {
+    }
+
+    private static final class State {
+
+        private final Counter scaledUp;
+        private final Counter scaledDown;
+        private final Counter held;
+        private final AtomicLong lag = new AtomicLong();
+        private final AtomicInteger concurrency = new AtomicInteger();
+        private volatile String groupId;
+        private volatile long checkedAt;
+        // Only touched by the scheduler thread
+        private int quietChecks;
+        private long lastChangeAt;
+        private long lastCount;
+        private double lastTotalMs;
+
+        private State(Counter scaledUp, Counter scaledDown, Counter held) {
+            this.scaledUp = scaledUp;
+            this.scaledDown = scaledDown;
+            this.held = held;
+        }
+    }
+}
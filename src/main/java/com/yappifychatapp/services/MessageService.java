@@ -26,7 +26,9 @@ public class MessageService {
     private final MessageRepository messageRepository;
     private final ChatRepository chatRepository;
     private final UserRepository userRepository;
-    private final KafkaProducerService kafkaProducerService;
+    private final ChatEventBus chatEventBus;
+    private final MessageTracer messageTracer;
+    private final HotPathLog hotPathLog;
 
     private static final long EDIT_TIME_LIMIT_MINUTES = 15;
 
@@ -46,7 +48,7 @@ public class MessageService {
         return messageRepository.findByChatIdOrderByCreatedAtDesc(chatId, pageable);
     }
 
-    // Send a message with Kafka integration
+    // Send a message and publish it on the chat event bus
     @Transactional
     public Message sendMessage(String senderId, String chatId, String content) {
         if (content == null || content.trim().isEmpty()) {
@@ -78,11 +80,17 @@ public class MessageService {
         // Update latestMessage in chat
         chat.setLatestMessage(savedMessage);
         chatRepository.save(chat);
+        messageTracer.markStored();
 
-        // Publish message to Kafka for async processing
-        publishToKafka(savedMessage);
+        // Publish for broadcast and notifications (Kafka, or in-process with the local-bus profile)
+        publishEvent(savedMessage);
 
-        log.info("Message saved and published to Kafka - MessageId: {}", savedMessage.getId());
+        if (hotPathLog.allow("message.send")) {
+            log.atInfo().setMessage("Message saved and published")
+                    .addKeyValue("messageId", savedMessage.getId())
+                    .addKeyValue("chatId", chatId)
+                    .log();
+        }
 
         return savedMessage;
     }
@@ -186,17 +194,7 @@ public class MessageService {
         return messageRepository.countUnreadMessages(chatId, userId);
     }
 
-    private void publishToKafka(Message message) {
-        KafkaMessageDTO kafkaMessage = new KafkaMessageDTO(
-                message.getId(),
-                message.getChat().getId(),
-                message.getSender().getId(),
-                message.getSender().getName(),
-                message.getContent(),
-                message.getCreatedAt() != null ? message.getCreatedAt() : LocalDateTime.now(),
-                message.getChat().getIsGroupChat()
-        );
-
-        kafkaProducerService.sendMessage(kafkaMessage);
+    private void publishEvent(Message message) {
+        chatEventBus.publish(KafkaMessageDTO.from(message));
     }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package com.yappifychatapp.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Per-hop latency of sampled chat messages: received -> stored (Mongo) -> published -> consumed
+// (Kafka or in-process bus) -> dispatched to WebSocket subscribers, plus the producer ack.
+// A sampled message is bound to the receiving thread until it is published; from there its
+// timestamps travel with the event (TRACE_HEADER on Kafka). Unsampled messages cost one
+// comparison per hop. Timestamps are wall-clock microseconds, so stages that cross nodes
+// include their clock skew.
+@Service
+public class MessageTracer {
+
+    public static final String TRACE_HEADER = "chat-trace";
+
+    // Fraction of messages traced; 0 turns tracing off
+    private final double sampleRate;
+    private final ThreadLocal<Trace> current = new ThreadLocal<>();
+
+    private final Timer store;
+    private final Timer publish;
+    private final Timer ack;
+    private final Timer transport;
+    private final Timer dispatch;
+    private final Timer endToEnd;
+
+    public MessageTracer(MeterRegistry meterRegistry,
+                         @Value("${chat.tracing.sample-rate:0.0}") double sampleRate) {
+        this.sampleRate = sampleRate;
+        this.store = stageTimer(meterRegistry, "store");
+        this.publish = stageTimer(meterRegistry, "publish");
+        this.ack = stageTimer(meterRegistry, "ack");
+        this.transport = stageTimer(meterRegistry, "transport");
+        this.dispatch = stageTimer(meterRegistry, "dispatch");
+        this.endToEnd = Timer.builder("chat.latency.end-to-end")
+                .description("Sampled messages from receipt to WebSocket dispatch")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    // Where a message enters the system; pair with end() in a finally block
+    public void begin() {
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            current.set(new Trace(nowMicros()));
+        }
+    }
+
+    public void end() {
+        if (sampleRate > 0) {
+            current.remove();
+        }
+    }
+
+    public void markStored() {
+        Trace trace = sampleRate > 0 ? current.get() : null;
+        if (trace != null) {
+            trace.storedUs = nowMicros();
+            record(store, trace.storedUs - trace.receivedUs);
+        }
+    }
+
+    // The calling thread's trace stamped with the publish time; null when the message is not sampled
+    public Trace markPublished() {
+        Trace trace = sampleRate > 0 ? current.get() : null;
+        if (trace != null) {
+            trace.publishedUs = nowMicros();
+            record(publish, trace.publishedUs - trace.storedUs);
+        }
+        return trace;
+    }
+
+    public void recordAck(Trace trace) {
+        if (trace != null) {
+            record(ack, nowMicros() - trace.publishedUs);
+        }
+    }
+
+    // Trace carried by a consumed Kafka record, stamped with the consume time; null when absent
+    public Trace consumed(byte[] header) {
+        if (header == null || header.length != 3 * Long.BYTES) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        Trace trace = new Trace(buffer.getLong());
+        trace.storedUs = buffer.getLong();
+        trace.publishedUs = buffer.getLong();
+        return markConsumed(trace);
+    }
+
+    // In-process hand-off of a trace from the publishing thread
+    public Trace markConsumed(Trace trace) {
+        if (trace != null) {
+            trace.consumedUs = nowMicros();
+            record(transport, trace.consumedUs - trace.publishedUs);
+        }
+        return trace;
+    }
+
+    public void recordDispatched(Trace trace) {
+        if (trace != null) {
+            long now = nowMicros();
+            record(dispatch, now - trace.consumedUs);
+            record(endToEnd, now - trace.receivedUs);
+        }
+    }
+
+    private static void record(Timer timer, long micros) {
+        // Skew between nodes can make a cross-node stage negative - drop those rather than clamp
+        if (micros >= 0) {
+            timer.record(micros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    private static long nowMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000;
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("chat.latency.stage")
+                .tag("stage", stage)
+                .description("Sampled message latency per pipeline stage")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    public static final class Trace {
+
+        private final long receivedUs;
+        private long storedUs;
+        private long publishedUs;
+        private long consumedUs;
+
+        private Trace(long receivedUs) {
+            this.receivedUs = receivedUs;
+        }
+
+        // received, stored and published times as three big-endian longs
+        public byte[] toHeader() {
+            return ByteBuffer.allocate(3 * Long.BYTES)
+                    .putLong(receivedUs)
+                    .putLong(storedUs)
+                    .putLong(publishedUs)
+                    .array();
+        }
+    }
+}
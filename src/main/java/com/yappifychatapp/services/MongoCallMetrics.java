@@ -0,0 +1,200 @@
+package com.yappifychatapp.services;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Mongo round trips per request and per DBRef resolution, plus a slow-command log.
+// Requests (HTTP and STOMP) open a scope on their thread; the synchronous driver reports every
+// command on the thread that issued it, so commands - including the ones DBRef loading issues
+// behind the repository call - are charged to the request that caused them.
+@Component
+@Slf4j
+public class MongoCallMetrics implements CommandListener {
+
+    private static final int SHAPE_MAX_DEPTH = 4;
+    private static final int SHAPE_MAX_LENGTH = 512;
+
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+    private final MeterRegistry meterRegistry;
+    private final Counter dbRefResolutions;
+    private final Counter slowCommands;
+
+    // Commands slower than this are logged with their shape; 0 turns the log off
+    @Value("${chat.mongo.slow-query-ms:100}")
+    private long slowQueryMs;
+
+    // requestId -> shape of the command in flight, kept only while the slow log is on
+    private final ConcurrentHashMap<Integer, String> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Summaries> endpoints = new ConcurrentHashMap<>();
+
+    public MongoCallMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.dbRefResolutions = Counter.builder("chat.mongo.dbref.resolutions")
+                .description("Documents loaded to resolve @DBRef properties")
+                .register(meterRegistry);
+        this.slowCommands = Counter.builder("chat.mongo.slow.commands")
+                .description("Mongo commands slower than chat.mongo.slow-query-ms")
+                .register(meterRegistry);
+    }
+
+    // Null when the thread already has a scope - the outer one keeps counting
+    public Scope open() {
+        if (current.get() != null) {
+            return null;
+        }
+        Scope scope = new Scope();
+        current.set(scope);
+        return scope;
+    }
+
+    public void close(Scope scope, String endpoint) {
+        if (scope == null) {
+            return;
+        }
+        current.remove();
+        Summaries summaries = endpoints.computeIfAbsent(endpoint, this::register);
+        summaries.calls().record(scope.commands);
+        summaries.dbRefs().record(scope.dbRefs);
+    }
+
+    public void recordDbRefResolutions(int documents) {
+        dbRefResolutions.increment(documents);
+        Scope scope = current.get();
+        if (scope != null) {
+            scope.dbRefs += documents;
+        }
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        Scope scope = current.get();
+        if (scope != null) {
+            scope.commands++;
+        }
+        // The command document is only valid during this callback, so the shape is taken now
+        if (slowQueryMs > 0) {
+            inFlight.put(event.getRequestId(), shape(event.getCommandName(), event.getCommand()));
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        finish(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.MILLISECONDS), "ok");
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        finish(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.MILLISECONDS),
+                event.getThrowable().getClass().getSimpleName());
+    }
+
+    private void finish(int requestId, String commandName, long elapsedMs, String outcome) {
+        if (slowQueryMs <= 0) {
+            return;
+        }
+        String shape = inFlight.remove(requestId);
+        if (elapsedMs >= slowQueryMs) {
+            slowCommands.increment();
+            log.warn("Slow Mongo command - {} ms, {}: {}", elapsedMs, outcome, shape != null ? shape : commandName);
+        }
+    }
+
+    private Summaries register(String endpoint) {
+        return new Summaries(
+                DistributionSummary.builder("chat.mongo.calls.per-request")
+                        .tag("endpoint", endpoint)
+                        .description("Mongo commands issued while handling one request")
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry),
+                DistributionSummary.builder("chat.mongo.dbrefs.per-request")
+                        .tag("endpoint", endpoint)
+                        .description("Documents loaded for @DBRef properties while handling one request")
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry));
+    }
+
+    // "find chats {users: {$elemMatch: ?}} sort {updatedAt: ?}" - field names and operators kept,
+    // values replaced, so the log never carries message content or ids
+    private static String shape(String commandName, BsonDocument command) {
+        StringBuilder shape = new StringBuilder(commandName);
+        BsonValue target = command.get(commandName);
+        if (target != null && target.isString()) {
+            shape.append(' ').append(target.asString().getValue());
+        }
+        for (Map.Entry<String, BsonValue> entry : command.entrySet()) {
+            String key = entry.getKey();
+            if (key.equals(commandName) || key.startsWith("$") || key.equals("lsid") || key.equals("txnNumber")) {
+                continue;
+            }
+            if (entry.getValue().isDocument() || entry.getValue().isArray()) {
+                shape.append(' ').append(key).append(' ');
+                appendShape(shape, entry.getValue(), 0);
+            }
+            if (shape.length() > SHAPE_MAX_LENGTH) {
+                shape.setLength(SHAPE_MAX_LENGTH);
+                return shape.append("...").toString();
+            }
+        }
+        return shape.toString();
+    }
+
+    private static void appendShape(StringBuilder shape, BsonValue value, int depth) {
+        if (depth >= SHAPE_MAX_DEPTH || shape.length() > SHAPE_MAX_LENGTH) {
+            shape.append('?');
+        } else if (value.isDocument()) {
+            shape.append('{');
+            boolean first = true;
+            for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                if (shape.length() > SHAPE_MAX_LENGTH) {
+                    break;
+                }
+                shape.append(first ? "" : ", ").append(entry.getKey()).append(": ");
+                appendShape(shape, entry.getValue(), depth + 1);
+                first = false;
+            }
+            shape.append('}');
+        } else if (value.isArray()) {
+            // Pipelines and update lists keep their structure; value lists collapse to one element
+            BsonArray array = value.asArray();
+            if (array.isEmpty()) {
+                shape.append("[]");
+            } else if (array.get(0).isDocument()) {
+                shape.append('[');
+                for (int i = 0; i < array.size() && shape.length() <= SHAPE_MAX_LENGTH; i++) {
+                    shape.append(i == 0 ? "" : ", ");
+                    appendShape(shape, array.get(i), depth + 1);
+                }
+                shape.append(']');
+            } else {
+                shape.append("[?]");
+            }
+        } else {
+            shape.append('?');
+        }
+    }
+
+    // Only touched by the thread that opened it
+    public static final class Scope {
+
+        private int commands;
+        private int dbRefs;
+    }
+
+    private record Summaries(DistributionSummary calls, DistributionSummary dbRefs) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.yappifychatapp.services;
+
+import com.yappifychatapp.dto.KafkaMessageDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+// Per-message side effects beyond the live broadcast, run once per message by whichever
+// ChatEventBus is active. Exceptions propagate so the Kafka bus can retry and dead-letter.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationService {
+
+    private final HotPathLog hotPathLog;
+
+    public void process(KafkaMessageDTO messageDTO) {
+        if (hotPathLog.allow("notification")) {
+            log.atInfo().setMessage("Processing notification")
+                    .addKeyValue("messageId", messageDTO.getMessageId())
+                    .addKeyValue("chatId", messageDTO.getChatId())
+                    .log();
+        }
+
+        // Here you can add notification logic:
+        // - Push notifications
+        // - Email notifications
+        // - Update unread counts
+        // - etc.
+    }
+}
@@ -0,0 +1,398 @@
+package com.yappifychatapp.services;
+
+import com.yappifychatapp.config.ChatInstance;
+import com.yappifychatapp.dto.PresenceUpdateDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Online/offline presence. State lives in a lock-striped table; changes are only marked dirty
+// and get pushed once per tick as one batched diff frame per watcher, so a burst of connects
+// and disconnects costs at most one frame per watcher per tick.
+//
+// Across nodes, each node publishes (user, node) keys to a compacted topic plus a heartbeat key
+// of its own. A node whose heartbeat stops for chat.presence.node-expiry-ms is taken for crashed:
+// its users are dropped and its keys tombstoned, so they are not replayed by nodes starting later.
+@Service
+@Slf4j
+public class PresenceService {
+
+    // Per-user destination - each watcher subscribes to /user/queue/presence and only its own
+    // sessions receive the diffs
+    public static final String PRESENCE_QUEUE = "/queue/presence";
+
+    private static final int STRIPES = 64;
+    private static final String KEY_SEPARATOR = "|";
+    // Heartbeat keys are "node|<instanceId>" - user ids are ObjectIds, so they never collide
+    private static final String NODE_KEY_PREFIX = "node" + KEY_SEPARATOR;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final WebSocketService webSocketService;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final String instanceId;
+
+    @Value("${kafka.topic.presence}")
+    private String presenceTopic;
+
+    // Off on single-node installs - local state is the whole picture
+    @Value("${chat.cluster.enabled:true}")
+    private boolean clusterEnabled;
+
+    // Above the heartbeat interval by enough to ride out a slow broker and some clock skew - the
+    // age of a node is judged by the timestamps of its own records
+    @Value("${chat.presence.node-expiry-ms:30000}")
+    private long nodeExpiryMs;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    // Other nodes: latest timestamp of a record they wrote, and the users online there
+    private final ConcurrentHashMap<String, Long> nodeLastSeen = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> usersByNode = new ConcurrentHashMap<>();
+    // No expiry while the topic replay at startup may still be behind the live heartbeats
+    private final long startedAt = System.currentTimeMillis();
+
+    // sessionId -> userId for sessions that identified themselves on this node
+    private final ConcurrentHashMap<String, String> sessionUsers = new ConcurrentHashMap<>();
+
+    // watched userId -> local watchers, and the reverse index for replacing/removing watches
+    private final ConcurrentHashMap<String, Set<String>> watchersByTarget = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> targetsByWatcher = new ConcurrentHashMap<>();
+
+    private final AtomicInteger onlineUsers = new AtomicInteger();
+    private final Counter diffsCounter;
+    private final Counter framesCounter;
+
+    public PresenceService(SimpMessagingTemplate messagingTemplate,
+                           WebSocketService webSocketService,
+                           KafkaTemplate<String, Object> kafkaTemplate,
+                           ChatInstance chatInstance,
+                           MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.webSocketService = webSocketService;
+        this.kafkaTemplate = kafkaTemplate;
+        this.instanceId = chatInstance.getInstanceId();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+
+        Gauge.builder("chat.presence.online", onlineUsers, AtomicInteger::get)
+                .description("Users online anywhere in the cluster, as last published by this node")
+                .register(meterRegistry);
+        this.diffsCounter = Counter.builder("chat.presence.diffs")
+                .description("Presence changes published after tick coalescing")
+                .register(meterRegistry);
+        this.framesCounter = Counter.builder("chat.presence.frames")
+                .description("Batched presence frames sent to watchers")
+                .register(meterRegistry);
+    }
+
+    // A STOMP session identified itself as userId
+    public void connected(String userId, String sessionId) {
+        String previous = sessionUsers.put(sessionId, userId);
+        if (userId.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            updateLocal(previous, -1);
+        }
+        updateLocal(userId, 1);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String userId = sessionUsers.remove(event.getSessionId());
+        if (userId == null) {
+            return;
+        }
+        if (updateLocal(userId, -1) == 0) {
+            // Last local session of this user is gone - it no longer watches anybody from here
+            unwatchAll(userId);
+        }
+    }
+
+    public boolean isOnline(String userId) {
+        Stripe stripe = stripeFor(userId);
+        synchronized (stripe) {
+            Entry entry = stripe.entries.get(userId);
+            return entry != null && entry.isOnline();
+        }
+    }
+
+    // Replace the set of users a watcher follows and send the current state of all of them at once
+    public void watch(String watcherId, List<String> targets) {
+        unwatchAll(watcherId);
+        Set<String> targetSet = ConcurrentHashMap.newKeySet();
+        targetSet.addAll(targets);
+        targetsByWatcher.put(watcherId, targetSet);
+
+        PresenceUpdateDTO snapshot = new PresenceUpdateDTO();
+        for (String target : targetSet) {
+            watchersByTarget.computeIfAbsent(target, id -> ConcurrentHashMap.newKeySet()).add(watcherId);
+            (isOnline(target) ? snapshot.getOnline() : snapshot.getOffline()).add(target);
+        }
+        send(watcherId, snapshot);
+    }
+
+    // Collect dirty entries from every stripe and push one batched frame per affected watcher;
+    // watchers connected here are sent to in parallel (see WebSocketService.sendToUsers)
+    @Scheduled(fixedRateString = "${chat.presence.tick-ms:1000}")
+    public void tick() {
+        List<String> cameOnline = new ArrayList<>();
+        List<String> wentOffline = new ArrayList<>();
+        Map<String, Boolean> localChanges = new HashMap<>();
+
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (stripe.dirty.isEmpty()) {
+                    continue;
+                }
+                for (String userId : stripe.dirty) {
+                    Entry entry = stripe.entries.get(userId);
+                    if (entry == null) {
+                        continue;
+                    }
+
+                    // Online -> offline -> online inside one tick publishes nothing
+                    boolean online = entry.isOnline();
+                    if (online != entry.published) {
+                        (online ? cameOnline : wentOffline).add(userId);
+                        entry.published = online;
+                    }
+
+                    boolean localOnline = entry.localSessions > 0;
+                    if (localOnline != entry.publishedLocal) {
+                        localChanges.put(userId, localOnline);
+                        entry.publishedLocal = localOnline;
+                    }
+
+                    if (!online && entry.remoteNodes.isEmpty()) {
+                        stripe.entries.remove(userId);
+                    }
+                }
+                stripe.dirty.clear();
+            }
+        }
+
+        publishToCluster(localChanges);
+
+        if (cameOnline.isEmpty() && wentOffline.isEmpty()) {
+            return;
+        }
+        onlineUsers.addAndGet(cameOnline.size() - wentOffline.size());
+        diffsCounter.increment(cameOnline.size() + wentOffline.size());
+
+        Map<String, PresenceUpdateDTO> batches = new HashMap<>();
+        addToBatches(batches, cameOnline, true);
+        addToBatches(batches, wentOffline, false);
+        framesCounter.increment(webSocketService.sendToUsers(batches, PRESENCE_QUEUE));
+    }
+
+    // Announce this node and drop nodes that went quiet
+    @Scheduled(fixedRateString = "${chat.presence.heartbeat-ms:10000}")
+    public void heartbeat() {
+        if (!clusterEnabled) {
+            return;
+        }
+        kafkaTemplate.send(presenceTopic, NODE_KEY_PREFIX + instanceId, Boolean.TRUE);
+
+        long now = System.currentTimeMillis();
+        if (now - startedAt < nodeExpiryMs) {
+            return;
+        }
+        long cutoff = now - nodeExpiryMs;
+        nodeLastSeen.forEach((nodeId, lastSeen) -> {
+            // Conditional remove - a heartbeat consumed in the meantime keeps the node
+            if (lastSeen < cutoff && nodeLastSeen.remove(nodeId, lastSeen)) {
+                expireNode(nodeId);
+            }
+        });
+    }
+
+    // Presence of users connected to other nodes, replayed from the compacted topic
+    @KafkaListener(
+            topics = "${kafka.topic.presence}",
+            groupId = "#{@chatInstance.presenceGroupId}",
+            containerFactory = "presenceListenerContainerFactory"
+    )
+    public void consumePresence(ConsumerRecord<String, byte[]> record) {
+        String key = record.key();
+        boolean online = record.value() != null;
+        if (key != null && key.startsWith(NODE_KEY_PREFIX)) {
+            consumeHeartbeat(key.substring(NODE_KEY_PREFIX.length()), online, record.timestamp());
+            return;
+        }
+
+        int separator = key == null ? -1 : key.lastIndexOf(KEY_SEPARATOR);
+        if (separator <= 0) {
+            return;
+        }
+
+        String userId = key.substring(0, separator);
+        String nodeId = key.substring(separator + 1);
+
+        if (nodeId.equals(instanceId)) {
+            int local = localSessions(userId);
+            if (online && local == 0) {
+                // Left over from an earlier run with the same instance id - clear it
+                kafkaTemplate.send(presenceTopic, key, null);
+            } else if (!online && local > 0) {
+                // Another node took this one for dead and tombstoned the key - restore it
+                kafkaTemplate.send(presenceTopic, key, Boolean.TRUE);
+            }
+            return;
+        }
+
+        if (online) {
+            nodeLastSeen.merge(nodeId, record.timestamp(), Math::max);
+            usersByNode.computeIfAbsent(nodeId, id -> ConcurrentHashMap.newKeySet()).add(userId);
+            updateRemote(userId, nodeId, true);
+        } else {
+            usersByNode.computeIfPresent(nodeId, (id, users) -> {
+                users.remove(userId);
+                return users.isEmpty() ? null : users;
+            });
+            updateRemote(userId, nodeId, false);
+        }
+    }
+
+    private void consumeHeartbeat(String nodeId, boolean alive, long timestamp) {
+        if (nodeId.equals(instanceId)) {
+            if (!alive) {
+                // Expired by another node while still running - announce again right away
+                kafkaTemplate.send(presenceTopic, NODE_KEY_PREFIX + instanceId, Boolean.TRUE);
+            }
+            return;
+        }
+        if (alive) {
+            nodeLastSeen.merge(nodeId, timestamp, Math::max);
+        } else {
+            nodeLastSeen.remove(nodeId);
+        }
+    }
+
+    // Every node that notices runs this; the tombstones it writes are idempotent
+    private void expireNode(String nodeId) {
+        Set<String> users = usersByNode.remove(nodeId);
+        int count = users == null ? 0 : users.size();
+        if (users != null) {
+            for (String userId : users) {
+                updateRemote(userId, nodeId, false);
+                kafkaTemplate.send(presenceTopic, userId + KEY_SEPARATOR + nodeId, null);
+            }
+        }
+        kafkaTemplate.send(presenceTopic, NODE_KEY_PREFIX + nodeId, null);
+        log.warn("Presence node {} missed its heartbeats - dropped {} users", nodeId, count);
+    }
+
+    private void updateRemote(String userId, String nodeId, boolean online) {
+        Stripe stripe = stripeFor(userId);
+        synchronized (stripe) {
+            Entry entry = stripe.entries.computeIfAbsent(userId, id -> new Entry());
+            boolean changed = online ? entry.remoteNodes.add(nodeId) : entry.remoteNodes.remove(nodeId);
+            if (changed) {
+                stripe.dirty.add(userId);
+            }
+        }
+    }
+
+    private int localSessions(String userId) {
+        Stripe stripe = stripeFor(userId);
+        synchronized (stripe) {
+            Entry entry = stripe.entries.get(userId);
+            return entry == null ? 0 : entry.localSessions;
+        }
+    }
+
+    private int updateLocal(String userId, int delta) {
+        Stripe stripe = stripeFor(userId);
+        synchronized (stripe) {
+            Entry entry = stripe.entries.computeIfAbsent(userId, id -> new Entry());
+            entry.localSessions = Math.max(0, entry.localSessions + delta);
+            stripe.dirty.add(userId);
+            return entry.localSessions;
+        }
+    }
+
+    private void publishToCluster(Map<String, Boolean> localChanges) {
+        if (!clusterEnabled) {
+            return;
+        }
+        // Tombstone on offline, so compaction eventually forgets the key
+        localChanges.forEach((userId, online) ->
+                kafkaTemplate.send(presenceTopic, userId + KEY_SEPARATOR + instanceId, online ? Boolean.TRUE : null));
+    }
+
+    private void addToBatches(Map<String, PresenceUpdateDTO> batches, List<String> userIds, boolean online) {
+        for (String userId : userIds) {
+            Set<String> watchers = watchersByTarget.get(userId);
+            if (watchers == null) {
+                continue;
+            }
+            for (String watcherId : watchers) {
+                PresenceUpdateDTO batch = batches.computeIfAbsent(watcherId, id -> new PresenceUpdateDTO());
+                (online ? batch.getOnline() : batch.getOffline()).add(userId);
+            }
+        }
+    }
+
+    private void unwatchAll(String watcherId) {
+        Set<String> targets = targetsByWatcher.remove(watcherId);
+        if (targets == null) {
+            return;
+        }
+        for (String target : targets) {
+            watchersByTarget.computeIfPresent(target, (id, watchers) -> {
+                watchers.remove(watcherId);
+                return watchers.isEmpty() ? null : watchers;
+            });
+        }
+    }
+
+    private void send(String watcherId, PresenceUpdateDTO update) {
+        try {
+            messagingTemplate.convertAndSendToUser(watcherId, PRESENCE_QUEUE, update);
+            framesCounter.increment();
+        } catch (Exception e) {
+            log.error("Error sending presence update to {}: {}", watcherId, e.getMessage());
+        }
+    }
+
+    private Stripe stripeFor(String userId) {
+        return stripes[(userId.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private static final class Stripe {
+        private final Map<String, Entry> entries = new HashMap<>();
+        private final Set<String> dirty = new HashSet<>();
+    }
+
+    private static final class Entry {
+        private int localSessions;
+        private final Set<String> remoteNodes = new HashSet<>(2);
+        private boolean published;
+        private boolean publishedLocal;
+
+        private boolean isOnline() {
+            return localSessions > 0 || !remoteNodes.isEmpty();
+        }
+    }
+}
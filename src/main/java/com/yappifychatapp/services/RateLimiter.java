@@ -0,0 +1,155 @@
+package com.yappifychatapp.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Token buckets per (caller, endpoint class), held in a lock-striped table so concurrent
+// callers only contend when they hash to the same stripe. A check is pure memory work -
+// rejected requests never reach Mongo.
+@Service
+public class RateLimiter {
+
+    public enum EndpointClass {
+        // POST /api/message/ and /app/chat.send
+        MESSAGE_SEND,
+        // GET /api/user?search=
+        SEARCH,
+        // Everything else
+        DEFAULT
+    }
+
+    private static final int STRIPES = 256;
+
+    // Idle buckets are refilled anyway, so forgetting them changes nothing for the caller
+    private static final long IDLE_EVICTION_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    @Value("${chat.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    private final Limit[] limits = new Limit[EndpointClass.values().length];
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicInteger bucketCount = new AtomicInteger();
+
+    private final Counter[] allowed = new Counter[EndpointClass.values().length];
+    private final Counter[] rejected = new Counter[EndpointClass.values().length];
+
+    public RateLimiter(MeterRegistry meterRegistry,
+                       @Value("${chat.rate-limit.message-send.capacity:20}") int sendCapacity,
+                       @Value("${chat.rate-limit.message-send.per-second:5}") double sendRate,
+                       @Value("${chat.rate-limit.search.capacity:10}") int searchCapacity,
+                       @Value("${chat.rate-limit.search.per-second:2}") double searchRate,
+                       @Value("${chat.rate-limit.default.capacity:100}") int defaultCapacity,
+                       @Value("${chat.rate-limit.default.per-second:50}") double defaultRate) {
+        limits[EndpointClass.MESSAGE_SEND.ordinal()] = new Limit(sendCapacity, sendRate);
+        limits[EndpointClass.SEARCH.ordinal()] = new Limit(searchCapacity, searchRate);
+        limits[EndpointClass.DEFAULT.ordinal()] = new Limit(defaultCapacity, defaultRate);
+
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+
+        // Counters are resolved once - a registry lookup per check would cost more than the check
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String tag = endpointClass.name().toLowerCase();
+            allowed[endpointClass.ordinal()] = meterRegistry.counter("chat.ratelimit.decisions",
+                    "class", tag, "outcome", "allowed");
+            rejected[endpointClass.ordinal()] = meterRegistry.counter("chat.ratelimit.decisions",
+                    "class", tag, "outcome", "rejected");
+        }
+        Gauge.builder("chat.ratelimit.buckets", bucketCount, AtomicInteger::get)
+                .description("Token buckets currently held in memory")
+                .register(meterRegistry);
+    }
+
+    // Takes one token for the caller; false means the request should be rejected
+    public boolean tryAcquire(String callerKey, EndpointClass endpointClass) {
+        if (!enabled) {
+            return true;
+        }
+
+        Limit limit = limits[endpointClass.ordinal()];
+        long now = System.nanoTime();
+        String key = endpointClass.ordinal() + ":" + callerKey;
+        Stripe stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+
+        boolean granted;
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(limit.capacity, now);
+                stripe.buckets.put(key, bucket);
+                bucketCount.incrementAndGet();
+            }
+            granted = bucket.tryTake(limit, now);
+        }
+
+        (granted ? allowed : rejected)[endpointClass.ordinal()].increment();
+        return granted;
+    }
+
+    // Seconds until the caller has a token again, for Retry-After
+    public long retryAfterSeconds(EndpointClass endpointClass) {
+        return Math.max(1, (long) Math.ceil(1.0 / limits[endpointClass.ordinal()].perNano / 1_000_000_000L));
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long cutoff = System.nanoTime() - IDLE_EVICTION_NANOS;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                int before = stripe.buckets.size();
+                stripe.buckets.values().removeIf(bucket -> bucket.updatedAt - cutoff < 0);
+                bucketCount.addAndGet(stripe.buckets.size() - before);
+            }
+        }
+    }
+
+    private static final class Limit {
+
+        private final double capacity;
+        private final double perNano;
+
+        private Limit(int capacity, double perSecond) {
+            if (capacity <= 0 || perSecond <= 0) {
+                throw new IllegalArgumentException("Rate limit capacity and rate must be positive");
+            }
+            this.capacity = capacity;
+            this.perNano = perSecond / 1_000_000_000d;
+        }
+    }
+
+    private static final class Stripe {
+        private final Map<String, Bucket> buckets = new HashMap<>();
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+        private long updatedAt;
+
+        private Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.updatedAt = now;
+        }
+
+        // Refill lazily from elapsed time - no timer per bucket
+        private boolean tryTake(Limit limit, long now) {
+            tokens = Math.min(limit.capacity, tokens + (now - updatedAt) * limit.perNano);
+            updatedAt = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+}
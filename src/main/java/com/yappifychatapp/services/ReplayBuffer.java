@@ -0,0 +1,179 @@
+package com.yappifychatapp.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+// Last N chat events per chat, kept so reconnecting clients can be caught up from memory.
+// Entries are the raw record values as consumed - nothing is copied or re-encoded on the way in.
+// The JSON form of a binary entry is made on its first resume and kept next to it in the slot.
+@Service
+public class ReplayBuffer {
+
+    @Value("${chat.resume.buffer-size:256}")
+    private int capacity;
+
+    // Chats with no new message for this long are dropped from memory
+    @Value("${chat.resume.retention-ms:300000}")
+    private long retentionMs;
+
+    private final ConcurrentHashMap<String, Ring> rings = new ConcurrentHashMap<>();
+    private final AtomicLong bufferedBytes = new AtomicLong();
+
+    public ReplayBuffer(MeterRegistry meterRegistry) {
+        Gauge.builder("chat.resume.buffer.chats", rings, Map::size)
+                .description("Chats with a replay buffer on this node")
+                .register(meterRegistry);
+        Gauge.builder("chat.resume.buffer.bytes", bufferedBytes, AtomicLong::get)
+                .description("Payload bytes held in replay buffers")
+                .register(meterRegistry);
+    }
+
+    public void append(String chatId, String messageId, byte[] payload) {
+        Ring ring = rings.computeIfAbsent(chatId, id -> new Ring(capacity));
+        synchronized (ring) {
+            bufferedBytes.addAndGet(ring.add(messageId, payload));
+        }
+    }
+
+    // Payloads broadcast after messageId, oldest first. Null when messageId is not in the buffer,
+    // i.e. the gap reaches further back than memory holds and the caller must go to the store.
+    public List<byte[]> since(String chatId, String messageId) {
+        Ring ring = rings.get(chatId);
+        if (ring == null) {
+            return null;
+        }
+        synchronized (ring) {
+            return ring.after(messageId);
+        }
+    }
+
+    // Same as since, but each payload in its JSON form. toJson runs once per buffered event; its
+    // result is held by the slot, counted in chat.resume.buffer.bytes, until the event is evicted.
+    public List<byte[]> jsonSince(String chatId, String messageId, UnaryOperator<byte[]> toJson) {
+        Ring ring = rings.get(chatId);
+        if (ring == null) {
+            return null;
+        }
+        synchronized (ring) {
+            long before = ring.bytes;
+            List<byte[]> result = ring.jsonAfter(messageId, toJson);
+            bufferedBytes.addAndGet(ring.bytes - before);
+            return result;
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - retentionMs;
+        rings.values().removeIf(ring -> {
+            synchronized (ring) {
+                if (ring.lastAppendAt >= cutoff) {
+                    return false;
+                }
+                bufferedBytes.addAndGet(-ring.bytes);
+                return true;
+            }
+        });
+    }
+
+    private static final class Ring {
+
+        private final String[] ids;
+        private final byte[][] payloads;
+        // JSON of binary payloads, set on first resume; the payload itself for JSON ones
+        private final byte[][] json;
+        private int head;
+        private int size;
+        private long bytes;
+        private long lastAppendAt;
+
+        private Ring(int capacity) {
+            this.ids = new String[capacity];
+            this.payloads = new byte[capacity][];
+            this.json = new byte[capacity][];
+        }
+
+        // Returns the change in buffered bytes
+        private long add(String messageId, byte[] payload) {
+            lastAppendAt = System.currentTimeMillis();
+
+            // Redelivered record - already buffered
+            if (size > 0 && messageId.equals(ids[index(size - 1)])) {
+                return 0;
+            }
+
+            long delta = payload.length;
+            if (size == ids.length) {
+                delta -= payloads[head].length + jsonBytes(head);
+                json[head] = null;
+                head = (head + 1) % ids.length;
+                size--;
+            }
+            int slot = index(size);
+            ids[slot] = messageId;
+            payloads[slot] = payload;
+            json[slot] = null;
+            size++;
+            bytes += delta;
+            return delta;
+        }
+
+        private List<byte[]> after(String messageId) {
+            int found = find(messageId);
+            if (found < 0) {
+                return null;
+            }
+            List<byte[]> result = new ArrayList<>(size - 1 - found);
+            for (int j = found + 1; j < size; j++) {
+                result.add(payloads[index(j)]);
+            }
+            return result;
+        }
+
+        private List<byte[]> jsonAfter(String messageId, UnaryOperator<byte[]> toJson) {
+            int found = find(messageId);
+            if (found < 0) {
+                return null;
+            }
+            List<byte[]> result = new ArrayList<>(size - 1 - found);
+            for (int j = found + 1; j < size; j++) {
+                int slot = index(j);
+                if (json[slot] == null) {
+                    json[slot] = toJson.apply(payloads[slot]);
+                    bytes += jsonBytes(slot);
+                }
+                result.add(json[slot]);
+            }
+            return result;
+        }
+
+        // Newest first - a short gap is found after a few comparisons
+        private int find(String messageId) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (messageId.equals(ids[index(i)])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // A JSON payload is its own JSON form and is not counted twice
+        private long jsonBytes(int slot) {
+            return json[slot] == null || json[slot] == payloads[slot] ? 0 : json[slot].length;
+        }
+
+        private int index(int offset) {
+            return (head + offset) % ids.length;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.yappifychatapp.services;
+
+import com.mongodb.DBRef;
+import com.yappifychatapp.dto.KafkaMessageDTO;
+import com.yappifychatapp.dto.ResumeResultDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+// Catches a reconnecting client up on what it missed while its socket was down.
+// Gaps are served from the in-memory ReplayBuffer; Mongo is read only when a gap is older
+// than the buffer. Missed messages go to the session's "/user/queue/replay" queue, followed
+// by one RESUMED frame per chat. Clients should subscribe to their chat topics first and
+// then resume, dropping duplicates by messageId.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResumeService {
+
+    public static final String REPLAY_QUEUE = "/queue/replay";
+
+    private static final String USERS = "users";
+    private static final String CHATS = "chats";
+    private static final String MESSAGES = "messages";
+
+    private final ReplayBuffer replayBuffer;
+    private final ChatEventPayloads chatEventPayloads;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Larger gaps are not replayed; the client re-fetches the chat over REST instead
+    @Value("${chat.resume.max-store-messages:500}")
+    private int maxStoreMessages;
+
+    @Value("${chat.resume.max-chats:200}")
+    private int maxChats;
+
+    public void resume(String userId, String sessionId, Map<String, String> positions) {
+        if (positions.size() > maxChats) {
+            throw new IllegalArgumentException("Cannot resume more than " + maxChats + " chats at once");
+        }
+
+        // One small read so a client can only resume chats it belongs to
+        Map<String, Boolean> memberChats = findMemberChats(userId, positions.keySet());
+
+        positions.forEach((chatId, lastMessageId) -> {
+            if (!memberChats.containsKey(chatId) || lastMessageId == null) {
+                done(sessionId, chatId, 0, "NONE", false);
+                return;
+            }
+
+            List<byte[]> missed = replayBuffer.jsonSince(chatId, lastMessageId, chatEventPayloads::toJson);
+            if (missed != null) {
+                String destination = "/user/" + sessionId + REPLAY_QUEUE;
+                missed.forEach(json -> messagingTemplate.send(destination, BroadcastPayloads.json(json, sessionId)));
+                done(sessionId, chatId, missed.size(), "MEMORY", true);
+                return;
+            }
+
+            replayFromStore(sessionId, chatId, memberChats.get(chatId), lastMessageId);
+        });
+    }
+
+    private void replayFromStore(String sessionId, String chatId, boolean groupChat, String lastMessageId) {
+        if (!ObjectId.isValid(lastMessageId)) {
+            done(sessionId, chatId, 0, "NONE", false);
+            return;
+        }
+
+        // Raw documents, so no @DBRef on Message gets resolved per row
+        Query missedQuery = query(where("chat.$id").is(new ObjectId(chatId))
+                .and("_id").gt(new ObjectId(lastMessageId)))
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(maxStoreMessages + 1);
+        missedQuery.fields().include("sender").include("content").include("createdAt");
+        List<Document> messages = mongoTemplate.find(missedQuery, Document.class, MESSAGES);
+
+        if (messages.size() > maxStoreMessages) {
+            done(sessionId, chatId, 0, "STORE", false);
+            return;
+        }
+
+        Map<Object, String> senderNames = findSenderNames(messages);
+        for (Document message : messages) {
+            DBRef sender = message.get("sender", DBRef.class);
+            Date createdAt = message.getDate("createdAt");
+            KafkaMessageDTO dto = new KafkaMessageDTO(
+                    message.getObjectId("_id").toHexString(),
+                    chatId,
+                    sender != null ? sender.getId().toString() : null,
+                    sender != null ? senderNames.get(sender.getId()) : null,
+                    message.getString("content"),
+                    createdAt != null ? LocalDateTime.ofInstant(createdAt.toInstant(), ZoneId.systemDefault()) : null,
+                    groupChat
+            );
+            messagingTemplate.convertAndSendToUser(sessionId, REPLAY_QUEUE, dto, sessionHeaders(sessionId));
+        }
+        done(sessionId, chatId, messages.size(), "STORE", true);
+    }
+
+    // chatId -> isGroupChat, for the requested chats the user is a member of
+    private Map<String, Boolean> findMemberChats(String userId, Iterable<String> chatIds) {
+        Map<String, Boolean> result = new HashMap<>();
+        if (userId == null || !ObjectId.isValid(userId)) {
+            return result;
+        }
+
+        List<ObjectId> ids = new ArrayList<>();
+        chatIds.forEach(id -> {
+            if (ObjectId.isValid(id)) {
+                ids.add(new ObjectId(id));
+            }
+        });
+        if (ids.isEmpty()) {
+            return result;
+        }
+
+        Query chatQuery = query(where("_id").in(ids).and("users.$id").is(new ObjectId(userId)));
+        chatQuery.fields().include("_id").include("isGroupChat");
+        for (Document chat : mongoTemplate.find(chatQuery, Document.class, CHATS)) {
+            result.put(chat.getObjectId("_id").toHexString(), Boolean.TRUE.equals(chat.getBoolean("isGroupChat")));
+        }
+        return result;
+    }
+
+    private Map<Object, String> findSenderNames(List<Document> messages) {
+        List<Object> senderIds = messages.stream()
+                .map(message -> message.get("sender", DBRef.class))
+                .filter(Objects::nonNull)
+                .map(DBRef::getId)
+                .distinct()
+                .toList();
+        Map<Object, String> names = new HashMap<>();
+        if (senderIds.isEmpty()) {
+            return names;
+        }
+
+        Query userQuery = query(where("_id").in(senderIds));
+        userQuery.fields().include("name");
+        for (Document user : mongoTemplate.find(userQuery, Document.class, USERS)) {
+            names.put(user.get("_id"), user.getString("name"));
+        }
+        return names;
+    }
+
+    private void done(String sessionId, String chatId, int replayed, String source, boolean complete) {
+        meterRegistry.counter("chat.resume.chats", "source", source.toLowerCase()).increment();
+        if (replayed > 0) {
+            meterRegistry.counter("chat.resume.messages", "source", source.toLowerCase()).increment(replayed);
+        }
+        messagingTemplate.convertAndSendToUser(sessionId, REPLAY_QUEUE,
+                new ResumeResultDTO(chatId, replayed, source, complete), sessionHeaders(sessionId));
+        log.debug("Resumed chat {} for session {} - {} messages from {}", chatId, sessionId, replayed, source);
+    }
+
+    // Lets "/user/{sessionId}/..." resolve to exactly this session
+    private static MessageHeaders sessionHeaders(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+}
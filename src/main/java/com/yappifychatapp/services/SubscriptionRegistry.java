@@ -0,0 +1,231 @@
+package com.yappifychatapp.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjIntConsumer;
+
+// Tracks which chat topics have subscribers on this node, fed by STOMP session events
+@Service
+public class SubscriptionRegistry {
+
+    public static final String CHAT_TOPIC_PREFIX = "/topic/chat/";
+
+    // Same events in the compact binary encoding (see ChatEventCodec); JSON stays the default
+    public static final String CHAT_BINARY_TOPIC_PREFIX = "/topic/chat-bin/";
+
+    // chatId -> local subscriptions to the chat, per wire format
+    private final ConcurrentHashMap<String, Subscribers> chatSubscribers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Subscribers> binarySubscribers = new ConcurrentHashMap<>();
+
+    // sessionId -> (subscriptionId -> subscription), needed because UNSUBSCRIBE/DISCONNECT carry no destination
+    private final ConcurrentHashMap<String, Map<String, Subscription>> sessionSubscriptions = new ConcurrentHashMap<>();
+
+    public SubscriptionRegistry(MeterRegistry meterRegistry) {
+        Gauge.builder("chat.subscriptions.chats", chatSubscribers, Map::size)
+                .description("Chats with at least one subscriber on this node")
+                .register(meterRegistry);
+        Gauge.builder("chat.subscriptions.chats.binary", binarySubscribers, Map::size)
+                .description("Chats with at least one binary-format subscriber on this node")
+                .register(meterRegistry);
+    }
+
+    // O(1) check used by the broadcast path before doing any serialization
+    public boolean hasSubscribers(String chatId) {
+        return hasJsonSubscribers(chatId) || hasBinarySubscribers(chatId);
+    }
+
+    public boolean hasJsonSubscribers(String chatId) {
+        return chatId != null && chatSubscribers.containsKey(chatId);
+    }
+
+    public boolean hasBinarySubscribers(String chatId) {
+        return chatId != null && binarySubscribers.containsKey(chatId);
+    }
+
+    // True from a session's first chat subscription until it disconnects
+    public boolean hasSession(String sessionId) {
+        return sessionSubscriptions.containsKey(sessionId);
+    }
+
+    public int getSubscriberCount(String chatId) {
+        Subscribers json = chatSubscribers.get(chatId);
+        Subscribers binary = binarySubscribers.get(chatId);
+        return (json == null ? 0 : json.size()) + (binary == null ? 0 : binary.size());
+    }
+
+    // Local subscription count per chat in one wire format, read without locking the map
+    public void forEachChat(boolean binary, ObjIntConsumer<String> consumer) {
+        (binary ? binarySubscribers : chatSubscribers).forEach((chatId, subscribers) ->
+                consumer.accept(chatId, subscribers.size()));
+    }
+
+    // The chat's subscriptions in one wire format split into shardCount groups by session, so a
+    // session always lands in the same shard. Cached until the chat's subscriptions change.
+    public Target[][] shardedSubscribers(String chatId, boolean binary, int shardCount) {
+        Subscribers subscribers = (binary ? binarySubscribers : chatSubscribers).get(chatId);
+        return subscribers == null ? new Target[shardCount][0] : subscribers.shards(shardCount);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        MessageHeaders headers = event.getMessage().getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (destination == null) {
+            return;
+        }
+
+        Subscription subscription;
+        if (destination.startsWith(CHAT_TOPIC_PREFIX)) {
+            subscription = new Subscription(destination.substring(CHAT_TOPIC_PREFIX.length()), false);
+        } else if (destination.startsWith(CHAT_BINARY_TOPIC_PREFIX)) {
+            subscription = new Subscription(destination.substring(CHAT_BINARY_TOPIC_PREFIX.length()), true);
+        } else {
+            return;
+        }
+
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+        if (sessionId == null || subscriptionId == null) {
+            return;
+        }
+
+        Subscription previous = sessionSubscriptions
+                .computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .putIfAbsent(subscriptionId, subscription);
+
+        if (previous == null) {
+            add(subscription, new Target(sessionId, subscriptionId));
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        removeSubscription(event.getMessage());
+    }
+
+    // First of the disconnect listeners, so later ones see the session already gone (see ChatFanout)
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String sessionId = event.getSessionId();
+        Map<String, Subscription> subscriptions = sessionSubscriptions.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.forEach((subscriptionId, subscription) ->
+                    remove(subscription, new Target(sessionId, subscriptionId)));
+        }
+    }
+
+    private void removeSubscription(Message<byte[]> message) {
+        MessageHeaders headers = message.getHeaders();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+        if (sessionId == null || subscriptionId == null) {
+            return;
+        }
+
+        Map<String, Subscription> subscriptions = sessionSubscriptions.get(sessionId);
+        if (subscriptions == null) {
+            return;
+        }
+
+        Subscription subscription = subscriptions.remove(subscriptionId);
+        if (subscription != null) {
+            remove(subscription, new Target(sessionId, subscriptionId));
+        }
+    }
+
+    private ConcurrentHashMap<String, Subscribers> subscribersFor(Subscription subscription) {
+        return subscription.binary() ? binarySubscribers : chatSubscribers;
+    }
+
+    private void add(Subscription subscription, Target target) {
+        subscribersFor(subscription).compute(subscription.chatId(), (id, subscribers) -> {
+            Subscribers result = subscribers == null ? new Subscribers() : subscribers;
+            result.add(target);
+            return result;
+        });
+    }
+
+    private void remove(Subscription subscription, Target target) {
+        // Drop the entry at zero so hasSubscribers stays a plain containsKey
+        subscribersFor(subscription).computeIfPresent(subscription.chatId(),
+                (id, subscribers) -> subscribers.remove(target) == 0 ? null : subscribers);
+    }
+
+    private record Subscription(String chatId, boolean binary) {
+    }
+
+    // One STOMP subscription on this node - what the broker needs to address a MESSAGE frame
+    public record Target(String sessionId, String subscriptionId) {
+    }
+
+    // Changes happen under the owning map's compute lock; readers take cached shard arrays
+    private static final class Subscribers {
+
+        private final Set<Target> targets = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger version = new AtomicInteger();
+        private volatile Sharded sharded;
+
+        private void add(Target target) {
+            if (targets.add(target)) {
+                version.incrementAndGet();
+            }
+        }
+
+        // Returns the remaining size
+        private int remove(Target target) {
+            if (targets.remove(target)) {
+                version.incrementAndGet();
+            }
+            return targets.size();
+        }
+
+        private int size() {
+            return targets.size();
+        }
+
+        private Target[][] shards(int shardCount) {
+            // Version is read before copying: a change during the copy leaves a stale version
+            // behind, and the next caller rebuilds
+            int current = version.get();
+            Sharded cached = sharded;
+            if (cached != null && cached.version() == current && cached.shards().length == shardCount) {
+                return cached.shards();
+            }
+
+            List<List<Target>> groups = new ArrayList<>(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                groups.add(new ArrayList<>());
+            }
+            for (Target target : targets) {
+                groups.get(Math.floorMod(target.sessionId().hashCode(), shardCount)).add(target);
+            }
+            Target[][] shards = new Target[shardCount][];
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = groups.get(i).toArray(Target[]::new);
+            }
+            sharded = new Sharded(current, shards);
+            return shards;
+        }
+    }
+
+    private record Sharded(int version, Target[][] shards) {
+    }
+}
@@ -0,0 +1,199 @@
+package com.yappifychatapp.services;
+
+import com.yappifychatapp.config.ChatInstance;
+import com.yappifychatapp.dto.TypingEventDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Ephemeral typing indicators - never touch Mongo and never enter the chat message topic
+@Service
+@Slf4j
+public class TypingService {
+
+    public static final String TYPING_TOPIC_PREFIX = "/topic/typing/";
+
+    private static final String ORIGIN_HEADER = "origin";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final SubscriptionRegistry subscriptionRegistry;
+    private final String instanceId;
+    private final byte[] instanceIdBytes;
+
+    @Value("${kafka.topic.typing}")
+    private String typingTopic;
+
+    // Off on single-node installs - there is no other node to tell
+    @Value("${chat.cluster.enabled:true}")
+    private boolean clusterEnabled;
+
+    // At most one event per (user, chat) within this interval, whatever the state
+    @Value("${chat.typing.interval-ms:3000}")
+    private long intervalMs;
+
+    // chatId|userId -> what was sent last and what is waiting for the interval to end
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+    // Keys with a held-back state; only changed inside slots.compute for the same key
+    private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+
+    private final Counter relayed;
+    private final Counter coalesced;
+    private final Counter remote;
+
+    public TypingService(SimpMessagingTemplate messagingTemplate,
+                         KafkaTemplate<String, Object> kafkaTemplate,
+                         SubscriptionRegistry subscriptionRegistry,
+                         ChatInstance chatInstance,
+                         MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.subscriptionRegistry = subscriptionRegistry;
+        this.instanceId = chatInstance.getInstanceId();
+        this.instanceIdBytes = instanceId.getBytes(StandardCharsets.UTF_8);
+
+        this.relayed = meterRegistry.counter("chat.typing.events", "outcome", "relayed");
+        this.coalesced = meterRegistry.counter("chat.typing.events", "outcome", "coalesced");
+        this.remote = meterRegistry.counter("chat.typing.events", "outcome", "remote");
+    }
+
+    // The first event of an interval goes out at once. Later ones only replace the state held
+    // for the end of the interval, so a client toggling on every keystroke still costs one event
+    // per interval, and the last state it reported is the one recipients end up with.
+    public void typing(String userId, String chatId, boolean typing) {
+        long now = System.currentTimeMillis();
+        String key = chatId + "|" + userId;
+
+        boolean[] emit = new boolean[1];
+        slots.compute(key, (k, slot) -> {
+            if (slot == null) {
+                slot = new Slot(chatId, userId);
+            } else if (now - slot.sentAt < intervalMs) {
+                slot.pending = typing;
+                pendingKeys.add(k);
+                return slot;
+            }
+            slot.sent(typing, now);
+            pendingKeys.remove(k);
+            emit[0] = true;
+            return slot;
+        });
+
+        if (!emit[0]) {
+            coalesced.increment();
+            return;
+        }
+        emit(new TypingEventDTO(chatId, userId, typing));
+    }
+
+    // Sends held-back states whose interval has ended - unless they match what was sent last
+    @Scheduled(fixedDelayString = "${chat.typing.flush-ms:250}")
+    public void flushPending() {
+        long now = System.currentTimeMillis();
+        for (String key : pendingKeys) {
+            TypingEventDTO[] due = new TypingEventDTO[1];
+            slots.computeIfPresent(key, (k, slot) -> {
+                if (slot.pending == null || now - slot.sentAt < intervalMs) {
+                    return slot;
+                }
+                if (slot.pending != slot.sentTyping) {
+                    due[0] = new TypingEventDTO(slot.chatId, slot.userId, slot.pending);
+                    slot.sent(slot.pending, now);
+                }
+                slot.pending = null;
+                pendingKeys.remove(k);
+                return slot;
+            });
+            if (due[0] != null) {
+                emit(due[0]);
+            }
+        }
+    }
+
+    @KafkaListener(
+            topics = "${kafka.topic.typing}",
+            groupId = "#{@chatInstance.typingGroupId}",
+            containerFactory = "broadcastListenerContainerFactory"
+    )
+    public void consumeTyping(ConsumerRecord<String, byte[]> record) {
+        // Our own events were already delivered locally
+        Header origin = record.headers().lastHeader(ORIGIN_HEADER);
+        if (origin != null && instanceId.equals(new String(origin.value(), StandardCharsets.UTF_8))) {
+            return;
+        }
+
+        String chatId = record.key();
+        if (chatId == null || record.value() == null || !subscriptionRegistry.hasSubscribers(chatId)) {
+            return;
+        }
+
+        messagingTemplate.send(TYPING_TOPIC_PREFIX + chatId, BroadcastPayloads.json(record.value()));
+        remote.increment();
+    }
+
+    // Forget (user, chat) pairs that have been quiet for a while
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - intervalMs * 10;
+        for (String key : slots.keySet()) {
+            slots.computeIfPresent(key, (k, slot) -> slot.pending == null && slot.sentAt < cutoff ? null : slot);
+        }
+    }
+
+    private void emit(TypingEventDTO event) {
+        relayLocally(event.getChatId(), event);
+
+        // Lightweight hop so subscribers on other nodes see it too
+        if (clusterEnabled) {
+            ProducerRecord<String, Object> record = new ProducerRecord<>(typingTopic, event.getChatId(), event);
+            record.headers().add(ORIGIN_HEADER, instanceIdBytes);
+            kafkaTemplate.send(record);
+        }
+        relayed.increment();
+    }
+
+    private void relayLocally(String chatId, TypingEventDTO event) {
+        // Anyone showing the chat is subscribed to its message topic
+        if (!subscriptionRegistry.hasSubscribers(chatId)) {
+            return;
+        }
+        try {
+            messagingTemplate.convertAndSend(TYPING_TOPIC_PREFIX + chatId, event);
+        } catch (Exception e) {
+            log.error("Error relaying typing event for chat {}: {}", chatId, e.getMessage());
+        }
+    }
+
+    // Mutated only inside slots.compute for its key
+    private static final class Slot {
+        private final String chatId;
+        private final String userId;
+        private boolean sentTyping;
+        private long sentAt;
+        private Boolean pending;
+
+        private Slot(String chatId, String userId) {
+            this.chatId = chatId;
+            this.userId = userId;
+        }
+
+        private void sent(boolean typing, long at) {
+            sentTyping = typing;
+            sentAt = at;
+            pending = null;
+        }
+    }
+}
@@ -1,16 +1,13 @@
 package com.yappifychatapp.services;
 
-import com.yappifychatapp.models.Chat;
-import com.yappifychatapp.models.Message;
+import com.yappifychatapp.models.AccountDeletionJob;
 import com.yappifychatapp.models.User;
-import com.yappifychatapp.repositories.ChatRepository;
-import com.yappifychatapp.repositories.MessageRepository;
 import com.yappifychatapp.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.socket.CloseStatus;
 
 import java.util.List;
 import java.util.regex.Pattern;
@@ -21,9 +18,9 @@ import java.util.regex.Pattern;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final ChatRepository chatRepository;
-    private final MessageRepository messageRepository;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final AccountDeletionService accountDeletionService;
+    private final WebSocketService webSocketService;
 
     // Get user by ID
     public User getUserById(String userId) {
@@ -52,7 +49,7 @@ public class UserService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Invalid Email or Password"));
 
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        if (user.isDeleted() || !passwordEncoder.matches(password, user.getPassword())) {
             throw new RuntimeException("Invalid Email or Password");
         }
 
@@ -67,7 +64,6 @@ public class UserService {
     }
 
     // Update user profile
-    @Transactional
     public User updateProfile(String userId, String name, String pic) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -86,7 +82,6 @@ public class UserService {
     }
 
     // Change password
-    @Transactional
     public void changePassword(String userId, String currentPassword, String newPassword) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -102,9 +97,8 @@ public class UserService {
         log.info("Password changed for user: {}", userId);
     }
 
-    // Delete account - Production ready with proper cleanup
-    @Transactional
-    public void deleteAccount(String userId, String password) {
+    // Delete account - marks the user deleted and hands the cascade to a background job
+    public AccountDeletionJob deleteAccount(String userId, String password) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -114,48 +108,16 @@ public class UserService {
         }
 
         log.info("Starting account deletion process for user: {}", userId);
+        AccountDeletionJob job = accountDeletionService.scheduleDeletion(user);
 
-        // Step 1: Find all chats where user is a member
-        List<Chat> userChats = chatRepository.findByUsersContaining(user);
-
-        for (Chat chat : userChats) {
-            if (chat.getIsGroupChat()) {
-                // Handle group chat
-                chat.getUsers().remove(user);
-
-                // If user was admin, assign new admin
-                if (chat.getGroupAdmin() != null && chat.getGroupAdmin().getId().equals(userId)) {
-                    if (!chat.getUsers().isEmpty()) {
-                        chat.setGroupAdmin(chat.getUsers().get(0));
-                        log.info("Transferred admin rights to: {}", chat.getUsers().get(0).getName());
-                    }
-                }
-
-                // If no members left, delete the chat
-                if (chat.getUsers().isEmpty()) {
-                    // Delete all messages in this chat first
-                    List<Message> chatMessages = messageRepository.findByChatOrderByCreatedAtAsc(chat);
-                    messageRepository.deleteAll(chatMessages);
-                    chatRepository.delete(chat);
-                    log.info("Deleted empty group chat: {}", chat.getId());
-                } else {
-                    chatRepository.save(chat);
-                    log.info("Removed user from group chat: {}", chat.getId());
-                }
-            } else {
-                // One-to-one chat - delete the entire chat
-                List<Message> chatMessages = messageRepository.findByChatOrderByCreatedAtAsc(chat);
-                messageRepository.deleteAll(chatMessages);
-                chatRepository.delete(chat);
-                log.info("Deleted one-to-one chat: {}", chat.getId());
-            }
-        }
-
-        // Step 2: Handle messages where user is referenced in readBy
-        // Note: This is optional - messages will still exist but won't reference the user
+        // New requests and handshakes are already refused for a deleted user; connected STOMP
+        // sessions on this node are closed here rather than left working until they disconnect
+        webSocketService.closeSessions(userId, CloseStatus.POLICY_VIOLATION.withReason("Account deleted"));
+        return job;
+    }
 
-        // Step 3: Delete the user account
-        userRepository.delete(user);
-        log.info("User account deleted successfully: {}", userId);
+    // Get progress of the account deletion job
+    public AccountDeletionJob getDeletionStatus(String userId) {
+        return accountDeletionService.getLatestJob(userId);
     }
-}
\ No newline at end of file
+}
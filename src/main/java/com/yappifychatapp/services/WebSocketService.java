@@ -1,43 +1,224 @@
 package com.yappifychatapp.services;
 
-import com.yappifychatapp.models.Message;
-import lombok.RequiredArgsConstructor;
+import com.yappifychatapp.config.BoundedOutboundSession;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
 
+import java.security.Principal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class WebSocketService {
 
-    // userId -> WebSocketSession
-    private final ConcurrentHashMap<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    // Above this many recipients the fan-out is split across virtual threads
+    private static final int PARALLEL_FANOUT_THRESHOLD = 64;
+    private static final int FANOUT_CHUNK_SIZE = 32;
+
+    // Fallback limits for sessions that are not already wrapped by the transport decorator
+    private static final int SEND_TIME_LIMIT_MS = 5000;
+    private static final int SEND_BUFFER_SIZE_LIMIT = 64 * 1024;
+
+    // sessionId -> open session (bound to a user or not yet)
+    private final ConcurrentHashMap<String, WebSocketSession> openSessions = new ConcurrentHashMap<>();
+
+    // userId -> all of that user's sessions (one per device/tab)
+    private final ConcurrentHashMap<String, Set<WebSocketSession>> userSessions = new ConcurrentHashMap<>();
+
+    // sessionId -> userId, so cleanup on disconnect does not need to scan every user
+    private final ConcurrentHashMap<String, String> sessionUsers = new ConcurrentHashMap<>();
+
+    // Resolved lazily - the template is built by the broker configuration, which depends on this service
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+
+    private final ExecutorService fanOutExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ws-fanout-", 0).factory());
+
+    public WebSocketService(MeterRegistry meterRegistry, ObjectProvider<SimpMessagingTemplate> messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+        Gauge.builder("chat.websocket.sessions", openSessions, Map::size)
+                .description("Open WebSocket sessions on this node")
+                .register(meterRegistry);
+        Gauge.builder("chat.websocket.users", userSessions, Map::size)
+                .description("Users with at least one WebSocket session on this node")
+                .register(meterRegistry);
+        Gauge.builder("chat.websocket.outbound-queue.bytes.avg", this, WebSocketService::averageQueuedBytes)
+                .description("Average payload bytes waiting in a connection's outbound queue")
+                .register(meterRegistry);
+    }
+
+    // Called by the transport decorator for every new connection
+    public void sessionOpened(WebSocketSession session) {
+        openSessions.put(session.getId(), session);
+    }
+
+    // Called by the transport decorator when a connection closes - drops it from every index
+    public void sessionClosed(String sessionId) {
+        openSessions.remove(sessionId);
+        String userId = sessionUsers.remove(sessionId);
+        if (userId == null) {
+            return;
+        }
+
+        userSessions.computeIfPresent(userId, (id, sessions) -> {
+            sessions.removeIf(s -> s.getId().equals(sessionId));
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    // Sessions with a handshake user (see UserHandshakeHandler) are bound as soon as STOMP is
+    // connected, whether or not the client ever calls chat.addUser
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (user != null && sessionId != null) {
+            registerSession(user.getName(), sessionId);
+        }
+    }
+
+    // Closes sessions stuck on one frame past the send time limit, including ones in chats that
+    // went quiet - the check on enqueue alone never runs for them
+    @Scheduled(fixedDelayString = "${chat.websocket.session.sweep-ms:1000}")
+    public void sweepStuckSends() {
+        for (WebSocketSession session : openSessions.values()) {
+            if (session instanceof BoundedOutboundSession bounded) {
+                bounded.checkSendTimeLimit();
+            }
+        }
+    }
+
+    // Bind an already open connection to a user (after the client identified itself)
+    public void registerSession(String userId, String sessionId) {
+        WebSocketSession session = openSessions.get(sessionId);
+        if (session == null) {
+            log.warn("Cannot bind unknown WebSocket session {} to user {}", sessionId, userId);
+            return;
+        }
+        registerSession(userId, session);
+    }
 
     public void registerSession(String userId, WebSocketSession session) {
-        sessions.put(userId, session);
+        WebSocketSession safeSession = threadSafe(session);
+        openSessions.put(safeSession.getId(), safeSession);
+
+        // A session re-identifying as another user must leave the old user's set
+        String previousUser = sessionUsers.put(safeSession.getId(), userId);
+        if (previousUser != null && !previousUser.equals(userId)) {
+            userSessions.computeIfPresent(previousUser, (id, sessions) -> {
+                sessions.removeIf(s -> s.getId().equals(safeSession.getId()));
+                return sessions.isEmpty() ? null : sessions;
+            });
+        }
+
+        userSessions.compute(userId, (id, sessions) -> {
+            Set<WebSocketSession> result = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            result.removeIf(s -> s.getId().equals(safeSession.getId()));
+            result.add(safeSession);
+            return result;
+        });
     }
 
+    // Remove every session of a user (e.g. on logout)
     public void removeSession(String userId) {
-        sessions.remove(userId);
+        Set<WebSocketSession> sessions = userSessions.remove(userId);
+        if (sessions != null) {
+            sessions.forEach(s -> sessionUsers.remove(s.getId()));
+        }
     }
 
-    // Broadcast message to all chat users except sender
-    public void broadcastMessage(Message message) {
-        List<String> userIds = message.getChat().getUsers().stream()
-                .map(u -> u.getId())
-                .toList();
-
-        userIds.forEach(uid -> {
-            if (!uid.equals(message.getSender().getId()) && sessions.containsKey(uid)) {
+    // Closes every session of a user on this node, e.g. when the account is being deleted. Closing
+    // can block on a stuck socket, so it happens off the caller's thread.
+    public void closeSessions(String userId, CloseStatus status) {
+        Set<WebSocketSession> sessions = userSessions.get(userId);
+        if (sessions == null) {
+            return;
+        }
+        for (WebSocketSession session : List.copyOf(sessions)) {
+            fanOutExecutor.execute(() -> {
                 try {
-                    sessions.get(uid).sendMessage(new TextMessage(message.getContent()));
+                    session.close(status);
                 } catch (Exception e) {
-                    e.printStackTrace();
+                    log.debug("Error closing session {} of user {}: {}", session.getId(), userId, e.getMessage());
                 }
+            });
+        }
+    }
+
+    public int getSessionCount(String userId) {
+        Set<WebSocketSession> sessions = userSessions.get(userId);
+        return sessions == null ? 0 : sessions.size();
+    }
+
+    public boolean isOnline(String userId) {
+        return userSessions.containsKey(userId);
+    }
+
+    // Sends each user its own payload on a /user destination, e.g. /queue/presence, reaching every
+    // device it is connected from. Users without a session here are skipped. Large recipient lists
+    // are split into chunks sent in parallel; returns the number of users sent to.
+    public int sendToUsers(Map<String, ?> payloadByUser, String destination) {
+        List<Map.Entry<String, ?>> targets = new ArrayList<>();
+        for (Map.Entry<String, ?> entry : payloadByUser.entrySet()) {
+            if (isOnline(entry.getKey())) {
+                targets.add(entry);
             }
-        });
+        }
+
+        if (targets.size() < PARALLEL_FANOUT_THRESHOLD) {
+            targets.forEach(target -> send(target.getKey(), destination, target.getValue()));
+            return targets.size();
+        }
+
+        for (int from = 0; from < targets.size(); from += FANOUT_CHUNK_SIZE) {
+            List<Map.Entry<String, ?>> chunk = targets.subList(from, Math.min(from + FANOUT_CHUNK_SIZE, targets.size()));
+            fanOutExecutor.execute(() -> chunk.forEach(target -> send(target.getKey(), destination, target.getValue())));
+        }
+        return targets.size();
+    }
+
+    private void send(String userId, String destination, Object payload) {
+        try {
+            messagingTemplate.getObject().convertAndSendToUser(userId, destination, payload);
+        } catch (Exception e) {
+            log.error("Error sending to {} of user {}: {}", destination, userId, e.getMessage());
+        }
+    }
+
+    // Raw container sessions are not safe for concurrent sends
+    private WebSocketSession threadSafe(WebSocketSession session) {
+        if (session instanceof BoundedOutboundSession || session instanceof ConcurrentWebSocketSessionDecorator) {
+            return session;
+        }
+        return new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_SIZE_LIMIT);
+    }
+
+    private double averageQueuedBytes() {
+        long total = 0;
+        int count = 0;
+        for (WebSocketSession session : openSessions.values()) {
+            if (session instanceof BoundedOutboundSession bounded) {
+                total += bounded.getQueuedBytes();
+                count++;
+            }
+        }
+        return count == 0 ? 0.0 : (double) total / count;
     }
 }
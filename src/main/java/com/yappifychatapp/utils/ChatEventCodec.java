@@ -0,0 +1,285 @@
+package com.yappifychatapp.utils;
+
+import com.yappifychatapp.dto.KafkaMessageDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Compact binary encoding of a chat message event.
+//
+// Layout: [version][flags][body], body optionally deflated (FLAG_DEFLATED).
+// Body fields, in order: messageId, chatId, senderId, senderName, content (varint length + 1,
+// then UTF-8 bytes; 0 means null), timestamp (zig-zag varint epoch millis, UTC wall clock).
+//
+// Evolution rules: fields are only ever appended to the end of the body and never reordered
+// or removed. Readers stop at the end of the body, so older payloads decode with defaults
+// for newer fields, and newer payloads decode on older readers that ignore the tail.
+// The version byte changes only for an incompatible layout.
+//
+// Several events for one chat can be sent as a batch: [BATCH][count]{[length][event]}, with
+// varint count and lengths. BATCH can never be a valid version byte.
+public final class ChatEventCodec {
+
+    public static final byte VERSION = 1;
+    public static final byte BATCH = (byte) 0x80;
+
+    private static final int FLAG_DEFLATED = 1;
+    private static final int FLAG_GROUP_CHAT = 1 << 1;
+
+    private static final int HEADER_SIZE = 2;
+
+    private ChatEventCodec() {
+    }
+
+    public static boolean isBinary(byte[] bytes) {
+        return bytes.length > 0 && (bytes[0] == VERSION || bytes[0] == BATCH);
+    }
+
+    public static byte[] encode(KafkaMessageDTO message) {
+        return encode(message, Integer.MAX_VALUE);
+    }
+
+    // Bodies larger than compressThreshold bytes are deflated
+    public static byte[] encode(KafkaMessageDTO message, int compressThreshold) {
+        Writer body = new Writer(64 + length(message.getContent()));
+        body.writeString(message.getMessageId());
+        body.writeString(message.getChatId());
+        body.writeString(message.getSenderId());
+        body.writeString(message.getSenderName());
+        body.writeString(message.getContent());
+        body.writeVarLong(zigZag(message.getTimestamp() != null
+                ? message.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli()
+                : Long.MIN_VALUE));
+
+        int flags = message.isGroupChat() ? FLAG_GROUP_CHAT : 0;
+        byte[] payload = body.toByteArray();
+        if (payload.length > compressThreshold) {
+            byte[] deflated = deflate(payload);
+            if (deflated.length < payload.length) {
+                payload = deflated;
+                flags |= FLAG_DEFLATED;
+            }
+        }
+
+        byte[] out = new byte[HEADER_SIZE + payload.length];
+        out[0] = VERSION;
+        out[1] = (byte) flags;
+        System.arraycopy(payload, 0, out, HEADER_SIZE, payload.length);
+        return out;
+    }
+
+    public static byte[] encodeBatch(List<KafkaMessageDTO> messages, int compressThreshold) {
+        Writer out = new Writer(16 + messages.size() * 96);
+        out.buffer[out.position++] = BATCH;
+        out.writeVarLong(messages.size());
+        for (KafkaMessageDTO message : messages) {
+            out.writeBytes(encode(message, compressThreshold));
+        }
+        return out.toByteArray();
+    }
+
+    public static List<KafkaMessageDTO> decodeBatch(byte[] bytes) {
+        if (bytes.length == 0 || bytes[0] != BATCH) {
+            return List.of(decode(bytes));
+        }
+
+        Reader reader = new Reader(bytes);
+        reader.position = 1;
+        int count = (int) reader.readVarLong();
+        List<KafkaMessageDTO> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(decode(reader.readBytes()));
+        }
+        return messages;
+    }
+
+    public static KafkaMessageDTO decode(byte[] bytes) {
+        if (bytes.length < HEADER_SIZE || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported chat event encoding version");
+        }
+
+        int flags = bytes[1];
+        byte[] body = (flags & FLAG_DEFLATED) != 0
+                ? inflate(bytes, HEADER_SIZE)
+                : Arrays.copyOfRange(bytes, HEADER_SIZE, bytes.length);
+
+        Reader reader = new Reader(body);
+        KafkaMessageDTO message = new KafkaMessageDTO();
+        message.setGroupChat((flags & FLAG_GROUP_CHAT) != 0);
+        message.setMessageId(reader.readString());
+        message.setChatId(reader.readString());
+        message.setSenderId(reader.readString());
+        message.setSenderName(reader.readString());
+        message.setContent(reader.readString());
+        if (reader.hasRemaining()) {
+            long millis = unZigZag(reader.readVarLong());
+            if (millis != Long.MIN_VALUE) {
+                message.setTimestamp(LocalDateTime.ofEpochSecond(
+                        Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC));
+            }
+        }
+        return message;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length() * 3;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input, int offset) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(input, offset, input.length - offset);
+            ByteArrayOutputStream out = new ByteArrayOutputStream((input.length - offset) * 3);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt compressed chat event", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer;
+        private int position;
+
+        private Writer(int initialCapacity) {
+            this.buffer = new byte[Math.max(16, initialCapacity)];
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, buffer, position, utf8.length);
+            position += utf8.length;
+        }
+
+        private void writeBytes(byte[] value) {
+            writeVarLong(value.length);
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, buffer, position, value.length);
+            position += value.length;
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buffer;
+        private int position;
+
+        private Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private boolean hasRemaining() {
+            return position < buffer.length;
+        }
+
+        // Missing trailing fields (written by an older encoder) read as null
+        private String readString() {
+            if (!hasRemaining()) {
+                return null;
+            }
+            long length = readVarLong();
+            if (length == 0) {
+                return null;
+            }
+            int size = (int) (length - 1);
+            if (size < 0 || position + size > buffer.length) {
+                throw new IllegalArgumentException("Truncated chat event");
+            }
+            String value = new String(buffer, position, size, StandardCharsets.UTF_8);
+            position += size;
+            return value;
+        }
+
+        private byte[] readBytes() {
+            long length = readVarLong();
+            if (length < 0 || position + length > buffer.length) {
+                throw new IllegalArgumentException("Truncated chat event batch");
+            }
+            byte[] value = Arrays.copyOfRange(buffer, position, position + (int) length);
+            position += (int) length;
+            return value;
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (!hasRemaining()) {
+                    throw new IllegalArgumentException("Truncated chat event");
+                }
+                byte b = buffer[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in chat event");
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.yappifychatapp.utils;
+
+import com.yappifychatapp.dto.KafkaMessageDTO;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+// Reads chat message events in either encoding, so JSON records written before the switch
+// to the binary layout (or by producers that still write JSON) keep being consumed
+public class ChatEventDeserializer implements Deserializer<KafkaMessageDTO> {
+
+    private final JsonDeserializer<KafkaMessageDTO> json = new JsonDeserializer<>(KafkaMessageDTO.class, false);
+
+    @Override
+    public KafkaMessageDTO deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        return ChatEventCodec.isBinary(data) ? ChatEventCodec.decode(data) : json.deserialize(topic, data);
+    }
+
+    @Override
+    public KafkaMessageDTO deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        return ChatEventCodec.isBinary(data) ? ChatEventCodec.decode(data) : json.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
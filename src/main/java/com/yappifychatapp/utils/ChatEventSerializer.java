@@ -0,0 +1,46 @@
+package com.yappifychatapp.utils;
+
+import com.yappifychatapp.dto.KafkaMessageDTO;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+// Chat message events go out in the ChatEventCodec binary layout; everything else sharing the
+// template (typing events, presence flags) stays JSON. With binary disabled it is plain JSON.
+// byte[] values are already serialized (e.g. replayed dead letters) and pass through untouched.
+public class ChatEventSerializer implements Serializer<Object> {
+
+    private final JsonSerializer<Object> json = new JsonSerializer<>();
+    private final boolean binary;
+
+    public ChatEventSerializer(boolean binary) {
+        this.binary = binary;
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data instanceof byte[] raw) {
+            return raw;
+        }
+        if (binary && data instanceof KafkaMessageDTO message) {
+            return ChatEventCodec.encode(message);
+        }
+        return json.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data instanceof byte[] raw) {
+            return raw;
+        }
+        if (binary && data instanceof KafkaMessageDTO message) {
+            return ChatEventCodec.encode(message);
+        }
+        return json.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
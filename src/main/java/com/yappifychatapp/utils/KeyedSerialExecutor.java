@@ -0,0 +1,80 @@
+package com.yappifychatapp.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Runs tasks on a fixed set of single-threaded lanes chosen by key hash: tasks with the same key
+// run one after another in submission order, tasks with different keys run in parallel.
+// At most maxInFlight tasks are queued or running; execute blocks the caller beyond that.
+@Slf4j
+public class KeyedSerialExecutor implements AutoCloseable {
+
+    private final ExecutorService[] lanes;
+    private final Semaphore permits;
+    private final int maxInFlight;
+
+    public KeyedSerialExecutor(String name, int laneCount, int maxInFlight) {
+        if (laneCount <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("Lane count and in-flight limit must be positive");
+        }
+        this.lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(Thread.ofPlatform().name(name + "-" + i).factory());
+        }
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    public void execute(String key, Runnable task) throws InterruptedException {
+        submit((key.hashCode() & 0x7fffffff) % lanes.length, key, task);
+    }
+
+    // For callers that partition work themselves - tasks for the same lane keep their order
+    public void executeOnLane(int lane, Runnable task) throws InterruptedException {
+        submit(Math.floorMod(lane, lanes.length), "lane-" + lane, task);
+    }
+
+    private void submit(int lane, String key, Runnable task) throws InterruptedException {
+        permits.acquire();
+        try {
+            lanes[lane].execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("Keyed task failed for key {}: {}", key, e.getMessage(), e);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        try {
+            for (ExecutorService lane : lanes) {
+                lane.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
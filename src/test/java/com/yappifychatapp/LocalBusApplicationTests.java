@@ -0,0 +1,114 @@
+package com.yappifychatapp;
+
+import com.yappifychatapp.models.Chat;
+import com.yappifychatapp.models.Message;
+import com.yappifychatapp.models.User;
+import com.yappifychatapp.repositories.ChatRepository;
+import com.yappifychatapp.repositories.MessageRepository;
+import com.yappifychatapp.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+// The whole application on the local-bus profile, with no Kafka broker anywhere: a message sent
+// over STOMP to /app/chat.send goes through the in-process bus and reaches a /topic/chat
+// subscriber. Mongo is replaced by mocked repositories.
+@SpringBootTest(classes = YappifyChatApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.mongodb.uri=mongodb://localhost:27017/local-bus-test",
+                "jwt.secret=bG9jYWwtYnVzLXRlc3Qtc2VjcmV0LWtleS1sb25nLWVub3VnaC1mb3ItaHMyNTYtc2lnbmluZw==",
+                "jwt.expiration-ms=3600000",
+                "account-deletion.poll-interval-ms=3600000",
+                "logging.level.com.yappifychatapp=INFO"
+        })
+@ActiveProfiles("local-bus")
+class LocalBusApplicationTests {
+
+    private static final String CHAT_ID = "65f1c0a2e4b0a1b2c3d4e5f6";
+    private static final String SENDER_ID = "65f1c0a2e4b0a1b2c3d4e5f7";
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private ChatRepository chatRepository;
+
+    @MockitoBean
+    private MessageRepository messageRepository;
+
+    @Test
+    void sentMessageReachesChatSubscribers() throws Exception {
+        User sender = new User();
+        sender.setId(SENDER_ID);
+        sender.setName("Ada Lovelace");
+        Chat chat = new Chat();
+        chat.setId(CHAT_ID);
+        chat.setUsers(List.of(sender));
+        when(userRepository.findById(SENDER_ID)).thenReturn(Optional.of(sender));
+        when(chatRepository.findById(CHAT_ID)).thenReturn(Optional.of(chat));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> {
+            Message message = invocation.getArgument(0);
+            message.setId("65f1c0a2e4b0a1b2c3d4e5f8");
+            return message;
+        });
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        StompSession session = stompClient.connectAsync("ws://localhost:" + port + "/ws-chat/websocket",
+                new StompSessionHandlerAdapter() {
+                }).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        try {
+            BlockingQueue<String> received = new LinkedBlockingQueue<>();
+            session.subscribe("/topic/chat/" + CHAT_ID, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return byte[].class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    received.add(new String((byte[]) payload, StandardCharsets.UTF_8));
+                }
+            });
+
+            // Same session, so the broker has the subscription before the send is handled
+            StompHeaders send = new StompHeaders();
+            send.setDestination("/app/chat.send");
+            send.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            session.send(send, ("{\"chatId\":\"" + CHAT_ID + "\",\"senderId\":\"" + SENDER_ID
+                    + "\",\"content\":\"hello over the local bus\"}").getBytes(StandardCharsets.UTF_8));
+
+            String frame = received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            assertThat(frame).isNotNull()
+                    .contains("\"messageId\":\"65f1c0a2e4b0a1b2c3d4e5f8\"")
+                    .contains("\"content\":\"hello over the local bus\"");
+        } finally {
+            session.disconnect();
+            stompClient.stop();
+        }
+    }
+}
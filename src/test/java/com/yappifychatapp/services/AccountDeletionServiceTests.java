@@ -0,0 +1,165 @@
+package com.yappifychatapp.services;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.yappifychatapp.config.ChatInstance;
+import com.yappifychatapp.models.AccountDeletionJob;
+import com.yappifychatapp.models.AccountDeletionJob.Phase;
+import com.yappifychatapp.models.AccountDeletionJob.Status;
+import com.yappifychatapp.repositories.AccountDeletionJobRepository;
+import com.yappifychatapp.repositories.UserRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Job state machine of the background account deletion, one poll at a time, against mocked Mongo
+class AccountDeletionServiceTests {
+
+    private final AccountDeletionJobRepository jobRepository = mock(AccountDeletionJobRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final String userId = new ObjectId().toHexString();
+
+    private AccountDeletionService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new AccountDeletionService(jobRepository, userRepository, mongoTemplate,
+                new ChatInstance("node-a", true));
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "jobsPerPoll", 1);
+        ReflectionTestUtils.setField(service, "leaseMs", 60_000L);
+    }
+
+    @Test
+    void emptyPhaseMovesToTheNextOne() {
+        AccountDeletionJob job = claim(Phase.DIRECT_CHATS);
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("chats"))).thenReturn(List.of());
+
+        service.processPendingJobs();
+
+        assertThat(job.getStatus()).isEqualTo(Status.RUNNING);
+        assertThat(job.getPhase()).isEqualTo(Phase.SOLE_MEMBER_GROUPS);
+        assertThat(job.getLeaseUntil()).isNull();
+        verify(jobRepository).save(job);
+    }
+
+    @Test
+    void directChatsAreDeletedInBatchesWithoutLeavingThePhase() {
+        AccountDeletionJob job = claim(Phase.DIRECT_CHATS);
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("chats")))
+                .thenReturn(List.of(idDocument(new ObjectId()), idDocument(new ObjectId())));
+        when(mongoTemplate.remove(any(Query.class), eq("messages"))).thenReturn(DeleteResult.acknowledged(7));
+        when(mongoTemplate.remove(any(Query.class), eq("chats"))).thenReturn(DeleteResult.acknowledged(2));
+
+        service.processPendingJobs();
+
+        assertThat(job.getPhase()).isEqualTo(Phase.DIRECT_CHATS);
+        assertThat(job.getChatsDeleted()).isEqualTo(2);
+        assertThat(job.getMessagesDeleted()).isEqualTo(7);
+    }
+
+    @Test
+    void membershipIsPagedByIdAndTheCursorClearedWhenDone() {
+        AccountDeletionJob job = claim(Phase.GROUP_MEMBERSHIP);
+        ObjectId first = new ObjectId();
+        ObjectId second = new ObjectId();
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("chats")))
+                .thenReturn(List.of(idDocument(first), idDocument(second)))
+                .thenReturn(List.of());
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq("chats")))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+        service.processPendingJobs();
+
+        assertThat(job.getPhase()).isEqualTo(Phase.GROUP_MEMBERSHIP);
+        assertThat(job.getCursor()).isEqualTo(second.toHexString());
+        assertThat(job.getGroupsLeft()).isEqualTo(2);
+
+        service.processPendingJobs();
+
+        assertThat(job.getPhase()).isEqualTo(Phase.READ_RECEIPTS);
+        assertThat(job.getCursor()).isNull();
+    }
+
+    @Test
+    void userRecordCompletesTheJob() {
+        AccountDeletionJob job = claim(Phase.USER_RECORD);
+
+        service.processPendingJobs();
+
+        verify(userRepository).deleteById(userId);
+        assertThat(job.getPhase()).isEqualTo(Phase.DONE);
+        assertThat(job.getStatus()).isEqualTo(Status.COMPLETED);
+        assertThat(job.getCompletedAt()).isNotNull();
+    }
+
+    @Test
+    void failedStepKeepsThePhaseAndRecordsTheError() {
+        AccountDeletionJob job = claim(Phase.READ_RECEIPTS);
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("messages")))
+                .thenThrow(new IllegalStateException("primary stepped down"));
+
+        service.processPendingJobs();
+
+        assertThat(job.getPhase()).isEqualTo(Phase.READ_RECEIPTS);
+        assertThat(job.getLastError()).isEqualTo("primary stepped down");
+        verify(jobRepository).save(job);
+    }
+
+    @Test
+    void lostLeaseIsNotAnError() {
+        AccountDeletionJob job = claim(Phase.USER_RECORD);
+        when(jobRepository.save(job)).thenThrow(new OptimisticLockingFailureException("version changed"));
+
+        assertThatCode(service::processPendingJobs).doesNotThrowAnyException();
+    }
+
+    @Test
+    void nothingRunsWithoutAClaim() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(AccountDeletionJob.class))).thenReturn(null);
+
+        service.processPendingJobs();
+
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Document.class), anyString());
+        verify(jobRepository, never()).save(any());
+    }
+
+    private AccountDeletionJob claim(Phase phase) {
+        AccountDeletionJob job = new AccountDeletionJob();
+        job.setId(new ObjectId().toHexString());
+        job.setUserId(userId);
+        job.setPhase(phase);
+        job.setLeaseOwner("node-a");
+        job.setLeaseUntil(LocalDateTime.now().plusMinutes(1));
+        // One job per poll, so every poll claims this job again
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(AccountDeletionJob.class))).thenReturn(job);
+        return job;
+    }
+
+    private static Document idDocument(ObjectId id) {
+        return new Document("_id", id);
+    }
+}
@@ -0,0 +1,127 @@
+package com.yappifychatapp.services;
+
+import com.yappifychatapp.YappifyChatApplication;
+import com.yappifychatapp.config.ChatInstance;
+import com.yappifychatapp.dto.KafkaMessageDTO;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two nodes in one JVM against an embedded broker: in fan-out mode each node consumes the chat
+// topic in its own group, so a message published on one node reaches the other as well
+class BroadcastFanOutTests {
+
+    private static final String CHAT_TOPIC = "chat-messages-topic";
+    private static final String CHAT_ID = "65f1c0a2e4b0a1b2c3d4e5f6";
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private static EmbeddedKafkaKraftBroker broker;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() throws InterruptedException {
+        broker = new EmbeddedKafkaKraftBroker(1, 3, CHAT_TOPIC);
+        broker.afterPropertiesSet();
+        nodeA = start("node-a");
+        nodeB = start("node-b");
+        awaitAssignment(nodeA);
+        awaitAssignment(nodeB);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        broker.destroy();
+    }
+
+    @Test
+    void everyNodeReceivesEveryMessage() throws InterruptedException {
+        ChatEventBus bus = nodeA.getBean(ChatEventBus.class);
+        bus.publish(event("m1"));
+        bus.publish(event("m2"));
+
+        for (ConfigurableApplicationContext node : List.of(nodeA, nodeB)) {
+            ReplayBuffer replayBuffer = node.getBean(ReplayBuffer.class);
+            await(() -> {
+                List<byte[]> after = replayBuffer.since(CHAT_ID, "m1");
+                return after != null && after.size() == 1;
+            });
+        }
+    }
+
+    @Test
+    void nodesUseTheirOwnBroadcastGroups() {
+        String groupA = nodeA.getBean(ChatInstance.class).getBroadcastGroupId();
+        String groupB = nodeB.getBean(ChatInstance.class).getBroadcastGroupId();
+
+        assertThat(groupA).isEqualTo("chat-consumer-group-node-a");
+        assertThat(groupB).isEqualTo("chat-consumer-group-node-b");
+    }
+
+    @Test
+    void cleanShutdownDeletesTheNodeGroups() throws Exception {
+        ConfigurableApplicationContext nodeC = start("node-c");
+        awaitAssignment(nodeC);
+        List<String> groupIds = nodeC.getBean(ChatInstance.class).getNodeGroupIds();
+        nodeC.close();
+
+        try (AdminClient adminClient = AdminClient.create(Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()))) {
+            List<String> remaining = adminClient.listConsumerGroups().all().get(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .stream()
+                    .map(ConsumerGroupListing::groupId)
+                    .toList();
+            assertThat(remaining).doesNotContainAnyElementsOf(groupIds);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String instanceId) {
+        return new SpringApplicationBuilder(YappifyChatApplication.class)
+                .profiles("embedded-kafka")
+                .run("--server.port=0",
+                        "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                        "--chat.instance-id=" + instanceId);
+    }
+
+    // Broadcast groups start at the latest offset - nothing may be published before they own partitions
+    private static void awaitAssignment(ConfigurableApplicationContext node) throws InterruptedException {
+        MessageListenerContainer container = node.getBean(KafkaListenerEndpointRegistry.class)
+                .getListenerContainer("chat-broadcast-batch");
+        await(() -> container.getAssignedPartitions() != null && !container.getAssignedPartitions().isEmpty());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met within %d s", TIMEOUT_SECONDS).isLessThan(deadline);
+            Thread.sleep(100);
+        }
+    }
+
+    private static KafkaMessageDTO event(String messageId) {
+        return new KafkaMessageDTO(messageId, CHAT_ID, "65f1c0a2e4b0a1b2c3d4e5f7", "Sender",
+                "hello " + messageId, LocalDateTime.now(), false);
+    }
+}
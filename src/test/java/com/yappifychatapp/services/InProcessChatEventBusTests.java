@@ -0,0 +1,186 @@
+package com.yappifychatapp.services;
+
+import com.yappifychatapp.dto.KafkaMessageDTO;
+import com.yappifychatapp.utils.ChatEventCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The in-process bus on its own: ring buffers, dispatchers and notification workers, with the
+// broadcaster and notification service mocked to record what reaches them
+class InProcessChatEventBusTests {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final ChatBroadcaster chatBroadcaster = mock(ChatBroadcaster.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    // chatId -> message ids in the order they were delivered
+    private final Map<String, List<String>> delivered = new ConcurrentHashMap<>();
+    private final AtomicInteger notified = new AtomicInteger();
+
+    private InProcessChatEventBus bus;
+
+    @AfterEach
+    void tearDown() {
+        if (bus != null) {
+            bus.close();
+        }
+    }
+
+    @Test
+    void ringWrapsAroundWithoutLosingEvents() throws InterruptedException {
+        recordDeliveries();
+        bus = bus(1, 4);
+
+        // Many times the ring capacity, so publishers wait on a full ring and slots are reused
+        for (int i = 0; i < 1000; i++) {
+            bus.publish(event("chat-a", i));
+        }
+
+        await(() -> deliveredCount("chat-a") == 1000);
+        assertThat(delivered.get("chat-a")).isEqualTo(ids(1000));
+    }
+
+    @Test
+    void eachChatKeepsPublishOrderAcrossDispatchers() throws InterruptedException {
+        recordDeliveries();
+        bus = bus(2, 8);
+
+        List<Thread> publishers = new ArrayList<>();
+        for (String chatId : List.of("chat-a", "chat-b", "chat-c", "chat-d")) {
+            publishers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 500; i++) {
+                    bus.publish(event(chatId, i));
+                }
+            }));
+        }
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+
+        for (String chatId : List.of("chat-a", "chat-b", "chat-c", "chat-d")) {
+            await(() -> deliveredCount(chatId) == 500);
+            assertThat(delivered.get(chatId)).isEqualTo(ids(500));
+        }
+    }
+
+    @Test
+    void closeDrainsQueuedEvents() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        recordDeliveries(release);
+        recordNotifications(new CountDownLatch(0));
+        bus = bus(1, 64);
+
+        for (int i = 0; i < 50; i++) {
+            bus.publish(event("chat-a", i));
+        }
+        // The dispatcher is stuck in the first delivery while the bus is closed
+        Thread closer = Thread.ofPlatform().start(bus::close);
+        release.countDown();
+        closer.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+
+        assertThat(closer.isAlive()).isFalse();
+        assertThat(delivered.get("chat-a")).isEqualTo(ids(50));
+        assertThat(notified.get()).isEqualTo(50);
+    }
+
+    @Test
+    void slowNotificationsDoNotHoldUpBroadcast() throws InterruptedException {
+        recordDeliveries();
+        CountDownLatch release = new CountDownLatch(1);
+        recordNotifications(release);
+        bus = bus(1, 64);
+
+        try {
+            bus.publish(event("chat-a", 0));
+            await(() -> deliveredCount("chat-a") == 1);
+            bus.publish(event("chat-a", 1));
+            await(() -> deliveredCount("chat-a") == 2);
+            assertThat(notified.get()).isZero();
+        } finally {
+            release.countDown();
+        }
+        await(() -> notified.get() == 2);
+    }
+
+    private InProcessChatEventBus bus(int dispatchers, int ringCapacity) {
+        return new InProcessChatEventBus(chatBroadcaster, notificationService,
+                new MessageTracer(new SimpleMeterRegistry(), 0.0), new SimpleMeterRegistry(),
+                dispatchers, ringCapacity, 1, 1000);
+    }
+
+    private void recordDeliveries() {
+        recordDeliveries(new CountDownLatch(0));
+    }
+
+    // Every delivery waits for release; each payload is decoded back to its message id
+    private void recordDeliveries(CountDownLatch release) {
+        when(chatBroadcaster.accept(anyString(), anyString(), any())).thenReturn(true);
+        doAnswer(invocation -> {
+            release.await();
+            String chatId = invocation.getArgument(0);
+            List<byte[]> payloads = invocation.getArgument(1);
+            List<String> ids = delivered.computeIfAbsent(chatId, id -> new ArrayList<>());
+            synchronized (ids) {
+                payloads.forEach(payload -> ids.add(ChatEventCodec.decode(payload).getMessageId()));
+            }
+            return null;
+        }).when(chatBroadcaster).deliver(anyString(), any());
+    }
+
+    private void recordNotifications(CountDownLatch release) {
+        doAnswer(invocation -> {
+            release.await();
+            notified.incrementAndGet();
+            return null;
+        }).when(notificationService).process(any());
+    }
+
+    private int deliveredCount(String chatId) {
+        List<String> ids = delivered.get(chatId);
+        if (ids == null) {
+            return 0;
+        }
+        synchronized (ids) {
+            return ids.size();
+        }
+    }
+
+    private static List<String> ids(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add("m" + i);
+        }
+        return ids;
+    }
+
+    private static KafkaMessageDTO event(String chatId, int sequence) {
+        return new KafkaMessageDTO("m" + sequence, chatId, "65f1c0a2e4b0a1b2c3d4e5f7", "Sender",
+                "hello " + sequence, LocalDateTime.now(), false);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met within %d s", TIMEOUT_SECONDS).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}